@@ -0,0 +1,100 @@
+package clinicaflow.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import clinicaflow.dto.response.PatientImportReport;
+import clinicaflow.service.PatientImportService;
+
+/**
+ * Command-line patient import, for migrations too large to upload:
+ *
+ *   java -jar codex.jar --spring.main.web-application-type=none \
+ *       --import-patients=patients.csv [--import-format=csv|ndjson] [--import-checkpoint=patients.csv.checkpoint]
+ *
+ * The checkpoint file holds the last committed row and is rewritten after every
+ * chunk. Running the same command again after an interruption continues from it;
+ * it is deleted once the import completes. The application exits when done
+ * (status 0 if the import completed, 1 otherwise). Without --import-patients
+ * this does nothing.
+ */
+@Component
+public class PatientImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientImportRunner.class);
+
+    @Autowired
+    private PatientImportService importService;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        String file = option(args, "import-patients");
+        if (file == null) {
+            return;
+        }
+        Path input = Path.of(file);
+        String format = PatientImportService.resolveFormat(option(args, "import-format"), input.getFileName().toString());
+        if (format == null) {
+            throw new IllegalArgumentException("Cannot tell the format of " + input + "; pass --import-format=csv or ndjson");
+        }
+        String checkpointOption = option(args, "import-checkpoint");
+        Path checkpointFile = checkpointOption != null ? Path.of(checkpointOption)
+                : input.resolveSibling(input.getFileName() + ".checkpoint");
+        long resumeAfter = Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile).trim()) : 0;
+        if (resumeAfter > 0) {
+            log.info("Resuming import of {} after row {}", input, resumeAfter);
+        }
+
+        PatientImportReport report;
+        try (InputStream in = Files.newInputStream(input)) {
+            report = importService.importPatients(in, format, resumeAfter, progress -> {
+                writeCheckpoint(checkpointFile, progress.getCheckpoint());
+                log.info("Import of {}: row {}, {} imported, {} already on file, {} rejected", input,
+                        progress.getCheckpoint(), progress.getImported(), progress.getSkipped(), progress.getFailed());
+            });
+        }
+        report.getErrors().forEach(error -> log.warn("Row {}: {}", error.getRow(), error.getError()));
+        boolean completed = PatientImportReport.COMPLETED.equals(report.getStatus());
+        if (completed) {
+            Files.deleteIfExists(checkpointFile);
+            log.info("Import of {} completed: {} rows read, {} imported, {} already on file, {} rejected", input,
+                    report.getRowsRead(), report.getImported(), report.getSkipped(), report.getFailed());
+        } else {
+            log.error("Import of {} failed: {}; run again to resume from {}", input, report.getMessage(), checkpointFile);
+        }
+        System.exit(SpringApplication.exit(context, () -> completed ? 0 : 1));
+    }
+
+    // Written beside the target and moved over it, so a crash never leaves half a number
+    private static void writeCheckpoint(Path checkpointFile, long row) {
+        try {
+            Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            Files.writeString(temp, Long.toString(row));
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + checkpointFile, e);
+        }
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,70 @@
+package clinicaflow.config;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import clinicaflow.service.EntityVersionTracker;
+import clinicaflow.service.WaitTimePredictor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Conditional GET for the list endpoints. The ETag is built from the versions of
+ * every table the response is serialized from, so a matching If-None-Match is
+ * answered with 304 before the controller runs: no findAll(), no JSON.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    // Endpoint -> tables whose rows end up in its response body (plus in-memory versions such as the wait estimates)
+    static final Map<String, String[]> TABLES_BY_PATH = Map.of(
+        "/api/queue", new String[] { "queue", "patient", "staff_availability", WaitTimePredictor.ESTIMATE_VERSION },
+        "/patients/all", new String[] { "patient" },
+        "/patients", new String[] { "patient" },
+        "/consultations/all", new String[] { "consultation", "patient", "medical_staff" },
+        "/consultations", new String[] { "consultation", "patient", "medical_staff" },
+        "/api/medicalstaff/all", new String[] { "medical_staff", "user_account", "staff_availability" }
+    );
+
+    @Autowired
+    private EntityVersionTracker versionTracker;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String[] tables = TABLES_BY_PATH.get(request.getRequestURI().substring(request.getContextPath().length()));
+        if (tables == null) {
+            return true;
+        }
+
+        // Taken before the query runs, so the body is never older than the tag
+        String etag = versionTracker.etag(tables);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
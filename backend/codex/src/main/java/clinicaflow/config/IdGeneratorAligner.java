@@ -0,0 +1,66 @@
+package clinicaflow.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import clinicaflow.entity.IdGeneration;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Starts every pooled id generator after the ids already in the table.
+ *
+ * Tables that used AUTO_INCREMENT before pooled ids already hold rows, but the
+ * generator row would start again from 1. At startup, before any insert, each
+ * generator row is moved so that its next block begins after MAX(id). Rows
+ * that are already far enough ahead are left alone.
+ */
+@Component
+public class IdGeneratorAligner {
+
+    // Generator segment, table, id column
+    private static final List<String[]> SEGMENTS = List.of(
+            new String[] { "patient", "patient", "patient_id" },
+            new String[] { "queue", "queue", "id" },
+            new String[] { "consultation", "consultation", "consultationid" },
+            new String[] { "medical_staff", "medical_staff", "staffid" },
+            new String[] { "user_account", "user_account", "accountid" });
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected so the schema (including id_generator) exists before align() runs
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void align() {
+        for (String[] segment : SEGMENTS) {
+            align(segment[0], segment[1], segment[2]);
+        }
+    }
+
+    /*
+     * For a stored value V the pooled optimizer's next block ends at V or V + 1
+     * (depending on hibernate.id.generator.stored_last_used) and is ALLOCATION_SIZE
+     * long, so V = MAX(id) + ALLOCATION_SIZE keeps the whole block above MAX(id).
+     */
+    private void align(String segment, String table, String idColumn) {
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Long.class);
+        long target = maxId + IdGeneration.ALLOCATION_SIZE;
+
+        List<Long> current = jdbcTemplate.queryForList(
+                "SELECT " + IdGeneration.VALUE_COLUMN + " FROM " + IdGeneration.TABLE
+                        + " WHERE " + IdGeneration.SEGMENT_COLUMN + " = ?", Long.class, segment);
+        if (current.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO " + IdGeneration.TABLE + " (" + IdGeneration.SEGMENT_COLUMN + ", "
+                    + IdGeneration.VALUE_COLUMN + ") VALUES (?, ?)", segment, target);
+        } else if (current.get(0) < target) {
+            jdbcTemplate.update("UPDATE " + IdGeneration.TABLE + " SET " + IdGeneration.VALUE_COLUMN + " = ? WHERE "
+                    + IdGeneration.SEGMENT_COLUMN + " = ? AND " + IdGeneration.VALUE_COLUMN + " < ?", target, segment, target);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package clinicaflow.config;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import clinicaflow.entity.PatientEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Fixes up schemas created by older versions, which ddl-auto=update leaves as they are.
+ *
+ * Queue.patient used to be @OneToOne, so those schemas carry a unique key on
+ * queue.patient_id and a returning patient's second entry fails with a duplicate
+ * key. The key is dropped at startup when it is there; idx_queue_patient (declared
+ * on Queue) keeps the foreign key indexed.
+ *
+ * Patients saved before patient.match_key existed have it NULL, which hides them
+ * from the returning-patient lookup; their keys are filled in at startup. Rows
+ * without a contact number have no key and stay NULL.
+ *
+ * Queue rows written before queue.arrived_at existed have it NULL, and both the
+ * live line (today's arrivals) and the archiver go by it. Open entries get today's
+ * date with their displayed arrival_time, so they stay on the line.
+ *
+ * Indexes that entities no longer declare are dropped too; ddl-auto=update only
+ * ever adds them.
+ */
+@Component
+public class SchemaUpgrader {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaUpgrader.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    // table, index
+    private static final String[][] OBSOLETE_INDEXES = {
+        { "patient", "idx_patient_lname_id" },
+        { "patient", "idx_patient_fname_id" },
+        { "patient", "idx_patient_gender_age_id" },
+        // Its column leads idx_consultation_patient_timeline, which keeps the foreign key indexed
+        { "consultation", "idx_consultation_patient" }
+    };
+
+    // QueueService writes arrival_time as "hh:mm a"
+    private static final DateTimeFormatter ARRIVAL_FORMAT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive().appendPattern("hh:mm a").toFormatter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected so ddl-auto=update has run (and idx_queue_patient exists) before upgrade() does
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void upgrade() {
+        for (String index : uniqueIndexesOn("queue", "patient_id")) {
+            jdbcTemplate.execute("ALTER TABLE queue DROP INDEX " + index);
+            log.info("Dropped unique key {} on queue.patient_id", index);
+        }
+        for (String[] obsolete : OBSOLETE_INDEXES) {
+            if (indexColumns(obsolete[0], false).keySet().stream().anyMatch(obsolete[1]::equalsIgnoreCase)) {
+                jdbcTemplate.execute("ALTER TABLE " + obsolete[0] + " DROP INDEX " + obsolete[1]);
+                log.info("Dropped obsolete index {} on {}", obsolete[1], obsolete[0]);
+            }
+        }
+        backfillMatchKeys();
+        backfillArrivedAt();
+    }
+
+    private void backfillMatchKeys() {
+        List<Object[]> pending = new ArrayList<>();
+        int[] filled = { 0 };
+        jdbcTemplate.query("SELECT patient_id, fname, lname, contact_no, age FROM patient"
+                + " WHERE match_key IS NULL AND contact_no IS NOT NULL", (RowCallbackHandler) rs -> {
+            String key = PatientEntity.matchKey(rs.getString("fname"), rs.getString("lname"),
+                    rs.getString("contact_no"), rs.getInt("age"));
+            if (key != null) {
+                pending.add(new Object[] { key, rs.getInt("patient_id") });
+            }
+            if (pending.size() >= BACKFILL_BATCH_SIZE) {
+                filled[0] += writeMatchKeys(pending);
+            }
+        });
+        filled[0] += writeMatchKeys(pending);
+        if (filled[0] > 0) {
+            log.info("Filled in match_key for {} patients", filled[0]);
+        }
+    }
+
+    private int writeMatchKeys(List<Object[]> pending) {
+        int count = pending.size();
+        if (count > 0) {
+            jdbcTemplate.batchUpdate("UPDATE patient SET match_key = ? WHERE patient_id = ? AND match_key IS NULL", pending);
+            pending.clear();
+        }
+        return count;
+    }
+
+    private void backfillArrivedAt() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> stamps = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, arrival_time FROM queue WHERE arrived_at IS NULL"
+                + " AND UPPER(status) IN ('WAITING', 'CONSULTING')", (RowCallbackHandler) rs -> {
+            stamps.add(new Object[] { arrivedAt(rs.getString("arrival_time"), now), rs.getLong("id") });
+        });
+        if (!stamps.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE queue SET arrived_at = ? WHERE id = ? AND arrived_at IS NULL", stamps);
+            log.info("Filled in arrived_at for {} open queue entries", stamps.size());
+        }
+    }
+
+    // Today at the displayed "hh:mm a" time; now if it cannot be read or lies ahead
+    private static LocalDateTime arrivedAt(String arrivalTime, LocalDateTime now) {
+        if (arrivalTime != null) {
+            try {
+                LocalDateTime at = now.toLocalDate().atTime(LocalTime.parse(arrivalTime.trim(), ARRIVAL_FORMAT));
+                return at.isAfter(now) ? now : at;
+            } catch (DateTimeParseException e) {
+                // fall through
+            }
+        }
+        return now;
+    }
+
+    // Unique indexes (other than the primary key) whose only column is the given one
+    private List<String> uniqueIndexesOn(String table, String column) {
+        List<String> matches = new ArrayList<>();
+        indexColumns(table, true).forEach((index, columns) -> {
+            if (!"PRIMARY".equalsIgnoreCase(index) && columns.size() == 1 && columns.get(0).equalsIgnoreCase(column)) {
+                matches.add(index);
+            }
+        });
+        return matches;
+    }
+
+    // Index name -> its columns, in order
+    private Map<String, List<String>> indexColumns(String table, boolean uniqueOnly) {
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, List<String>>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, List<String>> columnsByIndex = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, uniqueOnly, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String indexColumn = rs.getString("COLUMN_NAME");
+                    if (index != null && indexColumn != null && (!uniqueOnly || !rs.getBoolean("NON_UNIQUE"))) {
+                        columnsByIndex.computeIfAbsent(index, i -> new ArrayList<>()).add(indexColumn);
+                    }
+                }
+            }
+            return columnsByIndex;
+        });
+    }
+}
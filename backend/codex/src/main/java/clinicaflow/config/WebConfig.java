@@ -0,0 +1,19 @@
+package clinicaflow.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ConditionalGetInterceptor conditionalGetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns(ConditionalGetInterceptor.TABLES_BY_PATH.keySet().toArray(new String[0]));
+    }
+}
@@ -1,19 +1,31 @@
 package clinicaflow.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import clinicaflow.security.JwtAuthenticationFilter;
+import clinicaflow.security.JwtUtils;
 
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig {
 
+    @Autowired
+    private JwtUtils jwtUtils;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())  // Disable CSRF for APIs
+            // Every request authenticates with its own bearer token; no HTTP session
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtils), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
                 // Allow all auth endpoints without authentication
                 .requestMatchers("/api/auth/**").permitAll()
@@ -22,7 +34,7 @@ public class WebSecurityConfig {
                 // Allow any other request
                 .anyRequest().permitAll()
             );
-        
+
         return http.build();
     }
-}
\ No newline at end of file
+}
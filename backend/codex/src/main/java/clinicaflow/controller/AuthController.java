@@ -7,6 +7,7 @@ import clinicaflow.entity.UserAccountEntity;
 import clinicaflow.entity.MedicalStaffEntity;
 import clinicaflow.repository.UserAccountRepository;
 import clinicaflow.security.JwtUtils;
+import clinicaflow.service.StaffDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -31,6 +32,9 @@ public class AuthController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private StaffDirectory staffDirectory;
+
     // Test endpoint
     @GetMapping("/test")
     public ResponseEntity<String> test() {
@@ -159,12 +163,13 @@ public class AuthController {
         response.put("role", user.getRole());
         response.put("username", user.getUsername());
         
-        if (user.getMedicalStaff() != null) {
+        Optional<MedicalStaffEntity> medicalStaff = staffDirectory.getByAccountId(user.getAccountID());
+        if (medicalStaff.isPresent()) {
             Map<String, Object> staffInfo = new HashMap<>();
-            staffInfo.put("name", user.getMedicalStaff().getName());
-            staffInfo.put("role", user.getMedicalStaff().getRole());
-            staffInfo.put("specialty", user.getMedicalStaff().getSpecialty());
-            staffInfo.put("contactNo", user.getMedicalStaff().getContactNo());
+            staffInfo.put("name", medicalStaff.get().getName());
+            staffInfo.put("role", medicalStaff.get().getRole());
+            staffInfo.put("specialty", medicalStaff.get().getSpecialty());
+            staffInfo.put("contactNo", medicalStaff.get().getContactNo());
             response.put("medicalStaff", staffInfo);
         }
         
@@ -3,19 +3,25 @@ package clinicaflow.controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import clinicaflow.dto.response.ConsultationView;
 import clinicaflow.entity.ConsultationEntity;
 import clinicaflow.service.ConsultationService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import clinicaflow.dto.request.ConsultationRequest;
 
 @RestController
@@ -26,7 +32,7 @@ public class ConsultationController {
     private ConsultationService cservice;
 
    @PostMapping("/add")
-    public ConsultationEntity addConsultation(@RequestBody ConsultationRequest request) { 
+    public ConsultationView addConsultation(@RequestBody ConsultationRequest request) { 
         ConsultationEntity consultationEntity = new ConsultationEntity();
         
         // Mapping properties from the Request object to the Entity
@@ -38,18 +44,44 @@ public class ConsultationController {
         
 
         // Pass the ID and the entity to the service
-        return cservice.saveConsultation(request.getPatientId(), request.getStaffId(), consultationEntity);
+        return ConsultationView.of(cservice.saveConsultation(request.getPatientId(), request.getStaffId(), consultationEntity));
     }
     
     
     @GetMapping("/all")
-    public List<ConsultationEntity> getAllConsultations() {
+    public List<ConsultationView> getAllConsultations() {
         return cservice.getAllConsultations();
     }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ConsultationView> getConsultation(@PathVariable int id) {
+        return ResponseEntity.of(cservice.getConsultation(id));
+    }
     
+    // Paged, filtered read, newest first: /consultations?after=<last consultationID>&limit=50&patientId=7&staffId=2&from=2025-01-01&to=2025-01-31
+    @GetMapping
+    public ResponseEntity<?> getConsultations(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "" + ConsultationService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) Integer patientId,
+            @RequestParam(required = false) Integer staffId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            return ResponseEntity.badRequest().body("'to' must not be before 'from'");
+        }
+        return ResponseEntity.ok(cservice.getConsultationPage(after, limit, patientId, staffId, from, to));
+    }
+
+    // Totals for the history page: all consultations, today, the last 7 days, distinct patients
+    @GetMapping("/summary")
+    public Map<String, Object> getSummary() {
+        return cservice.getSummary();
+    }
+
     @PutMapping("update/{id}")
-    public ConsultationEntity putConsultation(@PathVariable int id, @RequestBody ConsultationEntity consultation) {
-        return cservice.putConsultation(id, consultation);        
+    public ConsultationView putConsultation(@PathVariable int id, @RequestBody ConsultationEntity consultation) {
+        return ConsultationView.of(cservice.putConsultation(id, consultation));
     }
 
     @DeleteMapping("/delete/{id}")
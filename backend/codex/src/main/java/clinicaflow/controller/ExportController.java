@@ -0,0 +1,86 @@
+package clinicaflow.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import clinicaflow.service.ExportService;
+import jakarta.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    @Autowired
+    private ExportService exportService;
+
+    // Whole-table downloads for reporting, streamed row by row:
+    // /api/export/{patients|consultations|queue-history}?format=ndjson|csv&gzip=true&from=2025-01-01&to=2025-12-31
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String dataset,
+            @RequestParam(defaultValue = ExportService.NDJSON) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest request) {
+        if (!ExportService.isDataset(dataset)) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean csv = ExportService.CSV.equals(format);
+        if (!csv && !ExportService.NDJSON.equals(format)) {
+            return ResponseEntity.badRequest().body(message("format must be ndjson or csv"));
+        }
+        if (from != null && to != null && to.isBefore(from)) {
+            return ResponseEntity.badRequest().body(message("'to' must not be before 'from'"));
+        }
+
+        ExportService.Export body;
+        try {
+            body = exportService.export(dataset, format, gzip, from, to);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(message(e.getMessage()));
+        }
+        // The body only runs once async processing starts; if the request ends first
+        // (client gone, timeout, error) the slot must still go back
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ExportService.class, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                body.abandon();
+            }
+        });
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dataset + "." + format + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Streaming handlers need a streaming body even for a plain error message
+    private static StreamingResponseBody message(String text) {
+        return out -> out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,7 @@
 package clinicaflow.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import clinicaflow.entity.MedicalStaffEntity;
@@ -38,6 +40,33 @@ public class MedicalStaffController {
         return service.getAllStaff();
     }
 
+    // Filtered directory page, any combination of filters:
+    // /api/medicalstaff/search?department=Pediatrics&role=Doctor&availability=available&minAge=30&after=<last staffID>&limit=50
+    @GetMapping("/search")
+    public ResponseEntity<?> searchStaff(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "" + MedicalStaffService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) String availability,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge) {
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            return ResponseEntity.badRequest().body("minAge must not be greater than maxAge");
+        }
+        Map<String, Object> page = service.searchStaff(after, limit, department, role, specialty, availability, gender,
+                minAge, maxAge);
+        return ResponseEntity.ok(page);
+    }
+
+    // Staff directory cache counters: size, hits, misses, hitRate, loads, patches, and the availability board's
+    @GetMapping("/directory/stats")
+    public Map<String, Object> getDirectoryStats() {
+        return service.getDirectoryStats();
+    }
+
     // READ ONE
     @GetMapping("/{id}")
     public Optional<MedicalStaffEntity> getStaffById(@PathVariable int id) {
@@ -67,6 +96,12 @@ public class MedicalStaffController {
         }
     }
     
+    // Live counts per department: {department: {available, busy, offline, unset}}
+    @GetMapping("/availability/counts")
+    public Map<String, Map<String, Integer>> getAvailabilityCounts() {
+        return service.getAvailabilityCounts();
+    }
+
     // NEW: Get staff by availability
     @GetMapping("/availability/{status}")
     public List<MedicalStaffEntity> getStaffByAvailability(@PathVariable String status) {
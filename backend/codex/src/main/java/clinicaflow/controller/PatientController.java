@@ -1,20 +1,30 @@
 package clinicaflow.controller;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import clinicaflow.dto.response.PatientImportReport;
 import clinicaflow.entity.PatientEntity;
+import clinicaflow.service.ConsultationService;
+import clinicaflow.service.PatientImportService;
+import clinicaflow.service.PatientSearchIndex;
 import clinicaflow.service.PatientService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import jakarta.servlet.http.HttpServletRequest;
 
 
 
@@ -25,18 +35,84 @@ public class PatientController {
     @Autowired
     private PatientService pservice;
 
+    @Autowired
+    private PatientImportService importService;
+
+    @Autowired
+    private ConsultationService consultationService;
+
     //create
     @PostMapping("/add")
     public PatientEntity postPatient(@RequestBody PatientEntity patient) {
         return pservice.savePatient(patient);
     }
     
+    // Bulk load: POST /patients/import?format=csv|ndjson&resumeAfter=<checkpoint>, body is the file itself.
+    // The body is read as it arrives; progress is visible on GET /patients/import while it runs.
+    @PostMapping("/import")
+    public ResponseEntity<?> importPatients(HttpServletRequest request,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "0") long resumeAfter) throws IOException {
+        String resolved = PatientImportService.resolveFormat(format, request.getContentType());
+        if (resolved == null) {
+            return ResponseEntity.badRequest().body("format must be csv or ndjson (or send Content-Type text/csv or application/x-ndjson)");
+        }
+        if (resumeAfter < 0) {
+            return ResponseEntity.badRequest().body("resumeAfter must not be negative");
+        }
+        PatientImportReport report = importService.importPatients(request.getInputStream(), resolved, resumeAfter, null);
+        if (PatientImportReport.FAILED.equals(report.getStatus())) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(report);
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    @GetMapping("/import")
+    public List<PatientImportReport> getImports() {
+        return importService.getJobs();
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<PatientImportReport> getImport(@PathVariable String jobId) {
+        return ResponseEntity.of(importService.getJob(jobId));
+    }
+
     //read
     @GetMapping("/all")
     public List<PatientEntity> getAllPatients() {
         return pservice.getAllPatients();
     }
 
+    // Paged, filtered read: /patients?after=<last patientId>&limit=50&name=an&gender=Female&minAge=18&maxAge=65&fields=firstName,lastName
+    @GetMapping
+    public ResponseEntity<?> getPatients(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "" + PatientService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) String fields) {
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            return ResponseEntity.badRequest().body("minAge must not be greater than maxAge");
+        }
+        List<String> fieldList = fields == null || fields.isBlank() ? List.of()
+                : Arrays.stream(fields.split(",")).map(String::trim).filter(f -> !f.isEmpty()).toList();
+        for (String field : fieldList) {
+            if (!PatientService.isKnownField(field)) {
+                return ResponseEntity.badRequest().body("Unknown field: " + field);
+            }
+        }
+        return ResponseEntity.ok(pservice.getPatientPage(after, limit, name, gender, minAge, maxAge, fieldList));
+    }
+
+    // Front-desk lookup by name and/or contact number, typo tolerant: /patients/search?q=jon dela cruz&limit=10
+    @GetMapping("/search")
+    public List<Map<String, Object>> searchPatients(@RequestParam String q,
+            @RequestParam(defaultValue = "" + PatientSearchIndex.DEFAULT_LIMIT) int limit) {
+        return pservice.searchPatients(q, limit);
+    }
+
     //update
     @PutMapping("/update/{id}")
     public PatientEntity putPatient(@PathVariable int id, @RequestBody PatientEntity newPatientDetails) {
@@ -58,4 +134,16 @@ public class PatientController {
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+
+    // The patient's consultations, newest first: /patients/7/consultations?limit=20&cursor=<nextCursor of the previous page>
+    @GetMapping("/{id}/consultations")
+    public ResponseEntity<?> getPatientConsultations(@PathVariable int id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ConsultationService.DEFAULT_TIMELINE_SIZE) int limit) {
+        try {
+            return ResponseEntity.ok(consultationService.getPatientTimeline(id, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package clinicaflow.controller;
 
 import clinicaflow.dto.request.PatientQueueRequest;
+import clinicaflow.dto.response.QueueJoinResult;
 import clinicaflow.entity.Queue;
+import clinicaflow.service.DoctorScheduler;
+import clinicaflow.service.IdempotencyStore;
 import clinicaflow.service.QueueService;
+import clinicaflow.service.QueueStatistics;
+import clinicaflow.service.QueueStreamService;
+import clinicaflow.service.WaitTimePredictor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/queue")
@@ -19,17 +32,43 @@ public class QueueController {
     @Autowired
     private QueueService queueService;
 
+    @Autowired
+    private QueueStreamService queueStreamService;
+
+    @Autowired
+    private QueueStatistics queueStatistics;
+
+    @Autowired
+    private WaitTimePredictor waitTimePredictor;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private DoctorScheduler doctorScheduler;
+
+    @Value("${clinicaflow.queue.join-batch-max:500}")
+    private int maxBatchJoin;
+
     @PostMapping("/join")
-    public ResponseEntity<?> joinQueue(@RequestBody PatientQueueRequest request) {
+    public ResponseEntity<?> joinQueue(@RequestBody PatientQueueRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            Queue newQueue = queueService.joinQueue(request);
+            // A retried request with the same key gets the entry created by the first attempt
+            Queue newQueue = idempotencyKey == null || idempotencyKey.isBlank()
+                    ? queueService.joinQueue(request)
+                    : idempotencyStore.execute("join:" + idempotencyKey, () -> queueService.joinQueue(request));
 
             //custom response for the frontend
             Map<String, Object> response = new HashMap<>();
             response.put("queueNumber", newQueue.getQueueNumber());
             response.put("patientName", newQueue.getPatient().getFullName());
             response.put("status", newQueue.getStatus());
-            response.put("estimatedTime", "15 mins"); // Placeholder logic
+            response.put("assignedDoctorId", newQueue.getAssignedDoctorId());
+            response.put("assignedDoctor", newQueue.getAssignedDoctor());
+            Integer estimate = waitTimePredictor.estimateFor(newQueue.getId());
+            response.put("estimatedTime", estimate == null ? "--" : estimate + " mins");
+            response.put("estimatedWaitMinutes", estimate);
 
             return ResponseEntity.ok(response);
             
@@ -38,11 +77,90 @@ public class QueueController {
         }
     }
 
+    // Kiosk / outreach registration: many walk-ins in one request, one result per item
+    @PostMapping("/join/batch")
+    public ResponseEntity<?> joinQueueBatch(@RequestBody List<PatientQueueRequest> requests,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one patient is required");
+        }
+        if (requests.size() > maxBatchJoin) {
+            return ResponseEntity.badRequest().body("At most " + maxBatchJoin + " patients per batch");
+        }
+        try {
+            List<QueueJoinResult> results = idempotencyKey == null || idempotencyKey.isBlank()
+                    ? queueService.joinQueueBatch(requests)
+                    : idempotencyStore.execute("join-batch:" + idempotencyKey, () -> queueService.joinQueueBatch(requests));
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error joining queue: " + e.getMessage());
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<Queue>> getAllQueues() {
         return ResponseEntity.ok(queueService.getAllQueues());
     }
 
+    // Patient-facing status check; answered from memory, including the wait estimate
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getQueueEntry(@PathVariable Long id) {
+        return queueService.getQueueEntry(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Counts per status and wait-time averages/percentiles, from in-memory counters
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getQueueStats() {
+        return ResponseEntity.ok(queueStatistics.snapshot());
+    }
+
+    // Doctors on shift with the patients waiting in their line, as the scheduler ranks them
+    @GetMapping("/doctors")
+    public ResponseEntity<List<Map<String, Object>>> getDoctorLoads() {
+        return ResponseEntity.ok(doctorScheduler.loads());
+    }
+
+    // Delta sync for clients that cannot hold a stream open
+    @GetMapping("/changes")
+    public ResponseEntity<Map<String, Object>> getQueueChanges(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(queueService.getChangesSince(since));
+    }
+
+    // Visits by arrival date range (inclusive), archived and live, e.g. ?from=2025-01-01&to=2025-01-31&status=COMPLETED
+    @GetMapping("/history")
+    public ResponseEntity<?> getQueueHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status) {
+        LocalDate end = to == null ? from : to;
+        if (end.isBefore(from)) {
+            return ResponseEntity.badRequest().body("'to' must not be before 'from'");
+        }
+        return ResponseEntity.ok(queueService.getQueueHistory(from, end, status));
+    }
+
+    // Live updates: one "snapshot" event, then a "queue" event per change
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQueue() {
+        return queueStreamService.subscribe();
+    }
+
+    // Doctor takes the next patient: highest priority WAITING entry in their line or department
+    @PostMapping("/call-next")
+    public ResponseEntity<?> callNext(@RequestParam int staffId) {
+        try {
+            Optional<Queue> called = queueService.callNext(staffId);
+            if (called.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No patients waiting");
+            }
+            return ResponseEntity.ok(called.get());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error calling next patient: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateQueue(@PathVariable Long id, @RequestBody Queue queue) {
         try {
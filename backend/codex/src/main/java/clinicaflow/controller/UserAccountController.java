@@ -2,8 +2,9 @@ package clinicaflow.controller;
 
 import clinicaflow.entity.UserAccountEntity;
 import clinicaflow.entity.MedicalStaffEntity;
+import clinicaflow.security.AuthenticatedUser;
 import clinicaflow.service.UserAccountService;
-import clinicaflow.repository.MedicalStaffRepository;
+import clinicaflow.service.StaffDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,7 +26,7 @@ public class UserAccountController {
     private UserAccountService service;
     
     @Autowired
-    private MedicalStaffRepository medicalStaffRepository;
+    private StaffDirectory staffDirectory;
 
     // CREATE 
     @PostMapping("/add")
@@ -51,40 +52,22 @@ public class UserAccountController {
         try {
             System.out.println("🔍 Getting current user...");
             
-            // Get authentication from Spring Security
+            // Set by JwtAuthenticationFilter from the bearer token's claims; no database read
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             
-            if (auth == null || !auth.isAuthenticated() || auth.getName().equals("anonymousUser")) {
+            if (auth == null || !(auth.getPrincipal() instanceof AuthenticatedUser userAccount)) {
                 System.out.println("❌ User not authenticated");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Not authenticated");
             }
-            
-            String username = auth.getName();
-            System.out.println("✅ Authenticated user: " + username);
-            
-            // Find user by username (email in your case)
-            Optional<UserAccountEntity> userAccountOpt = service.findByUsername(username);
-            
-            if (userAccountOpt.isEmpty()) {
-                System.out.println("❌ User account not found for username: " + username);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body("User account not found");
-            }
-            
-            UserAccountEntity userAccount = userAccountOpt.get();
-            System.out.println("✅ Found user account: ID=" + userAccount.getAccountID() + 
-                               ", Username=" + userAccount.getUsername() + 
-                               ", Role=" + userAccount.getRole());
-            
-            // Find linked medical staff
-            Optional<MedicalStaffEntity> medicalStaffOpt = medicalStaffRepository
-                    .findByUserAccountAccountID(userAccount.getAccountID());
+
+            // Find linked medical staff (in memory)
+            Optional<MedicalStaffEntity> medicalStaffOpt = staffDirectory.getByAccountId(userAccount.accountID());
             
             // Create response
             Map<String, Object> response = new HashMap<>();
-            response.put("accountID", userAccount.getAccountID());
-            response.put("username", userAccount.getUsername());
-            response.put("role", userAccount.getRole());
+            response.put("accountID", userAccount.accountID());
+            response.put("username", userAccount.username());
+            response.put("role", userAccount.role());
             
             if (medicalStaffOpt.isPresent()) {
                 MedicalStaffEntity medicalStaff = medicalStaffOpt.get();
@@ -101,7 +84,7 @@ public class UserAccountController {
                 response.put("gender", medicalStaff.getGender());
             } else {
                 System.out.println("⚠️ No medical staff linked to this account");
-                response.put("name", userAccount.getUsername().split("@")[0]); // Use email name as fallback
+                response.put("name", userAccount.username().split("@")[0]); // Use email name as fallback
             }
             
             System.out.println("📤 Sending response: " + response);
@@ -7,6 +7,9 @@ public class PatientQueueRequest {
     private String gender;
     private String contactNo;
     private String address;
+    private Integer priority;
+    private String department;
+    private String specialty; // optional: prefer a doctor with this specialty
 
     // Getters and Setters
     public String getFirstName() { return firstName; }
@@ -21,4 +24,10 @@ public class PatientQueueRequest {
     public void setContactNo(String contactNo) { this.contactNo = contactNo; }
     public String getAddress() { return address; }
     public void setAddress(String address) { this.address = address; }
+    public Integer getPriority() { return priority; }
+    public void setPriority(Integer priority) { this.priority = priority; }
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+    public String getSpecialty() { return specialty; }
+    public void setSpecialty(String specialty) { this.specialty = specialty; }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package clinicaflow.dto.response;
+
+import java.time.LocalDate;
+
+import clinicaflow.entity.ConsultationEntity;
+import clinicaflow.entity.MedicalStaffEntity;
+import clinicaflow.entity.PatientEntity;
+
+// A consultation as the history pages read it: the same JSON shape the entity had,
+// but only the patient and staff columns those pages show, selected in one query
+public class ConsultationView {
+
+    private int consultationID;
+    private LocalDate consultationDate;
+    private String symptoms;
+    private String diagnosis;
+    private String medicinePrescribed;
+    private String remarks;
+    private PatientSummary patient;
+    private StaffSummary medicalStaff;
+
+    // Constructors
+    public ConsultationView() {
+    }
+
+    // Argument order used by the JPQL/criteria constructor expressions in ConsultationRepository and ConsultationService
+    public ConsultationView(int consultationID, LocalDate consultationDate, String symptoms, String diagnosis,
+            String medicinePrescribed, String remarks,
+            int patientId, String firstName, String lastName, int age, String gender, String contactNo,
+            int staffID, String staffName, String role, String department, String specialty) {
+        this.consultationID = consultationID;
+        this.consultationDate = consultationDate;
+        this.symptoms = symptoms;
+        this.diagnosis = diagnosis;
+        this.medicinePrescribed = medicinePrescribed;
+        this.remarks = remarks;
+        this.patient = new PatientSummary(patientId, firstName, lastName, age, gender, contactNo);
+        this.medicalStaff = new StaffSummary(staffID, staffName, role, department, specialty);
+    }
+
+    public static ConsultationView of(ConsultationEntity consultation) {
+        PatientEntity p = consultation.getPatient();
+        MedicalStaffEntity s = consultation.getMedicalStaff();
+        return new ConsultationView(consultation.getConsultationID(), consultation.getConsultationDate(),
+                consultation.getSymptoms(), consultation.getDiagnosis(), consultation.getMedicinePrescribed(),
+                consultation.getRemarks(),
+                p.getPatientId(), p.getFirstName(), p.getLastName(), p.getAge(), p.getGender(), p.getContactNo(),
+                s.getStaffID(), s.getName(), s.getRole(), s.getDepartment(), s.getSpecialty());
+    }
+
+    // Getters and Setters
+    public int getConsultationID() { return consultationID; }
+    public void setConsultationID(int consultationID) { this.consultationID = consultationID; }
+
+    public LocalDate getConsultationDate() { return consultationDate; }
+    public void setConsultationDate(LocalDate consultationDate) { this.consultationDate = consultationDate; }
+
+    public String getSymptoms() { return symptoms; }
+    public void setSymptoms(String symptoms) { this.symptoms = symptoms; }
+
+    public String getDiagnosis() { return diagnosis; }
+    public void setDiagnosis(String diagnosis) { this.diagnosis = diagnosis; }
+
+    public String getMedicinePrescribed() { return medicinePrescribed; }
+    public void setMedicinePrescribed(String medicinePrescribed) { this.medicinePrescribed = medicinePrescribed; }
+
+    public String getRemarks() { return remarks; }
+    public void setRemarks(String remarks) { this.remarks = remarks; }
+
+    public PatientSummary getPatient() { return patient; }
+    public void setPatient(PatientSummary patient) { this.patient = patient; }
+
+    public StaffSummary getMedicalStaff() { return medicalStaff; }
+    public void setMedicalStaff(StaffSummary medicalStaff) { this.medicalStaff = medicalStaff; }
+
+    public static class PatientSummary {
+        private int patientId;
+        private String firstName;
+        private String lastName;
+        private int age;
+        private String gender;
+        private String contactNo;
+
+        public PatientSummary() {
+        }
+
+        public PatientSummary(int patientId, String firstName, String lastName, int age, String gender, String contactNo) {
+            this.patientId = patientId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.age = age;
+            this.gender = gender;
+            this.contactNo = contactNo;
+        }
+
+        public int getPatientId() { return patientId; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+        public int getAge() { return age; }
+        public String getGender() { return gender; }
+        public String getContactNo() { return contactNo; }
+    }
+
+    public static class StaffSummary {
+        private int staffID;
+        private String name;
+        private String role;
+        private String department;
+        private String specialty;
+
+        public StaffSummary() {
+        }
+
+        public StaffSummary(int staffID, String name, String role, String department, String specialty) {
+            this.staffID = staffID;
+            this.name = name;
+            this.role = role;
+            this.department = department;
+            this.specialty = specialty;
+        }
+
+        public int getStaffID() { return staffID; }
+        public String getName() { return name; }
+        public String getRole() { return role; }
+        public String getDepartment() { return department; }
+        public String getSpecialty() { return specialty; }
+    }
+}
@@ -0,0 +1,87 @@
+package clinicaflow.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Progress and outcome of one patient import; read by GET /patients/import/{jobId} while it runs
+public class PatientImportReport {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED"; // aborted; rows up to checkpoint are saved
+
+    private final String jobId;
+    private final String format;
+    private final long resumedAfter;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile String status = RUNNING;
+    private volatile long rowsRead;
+    private volatile long imported;
+    private volatile long skipped;
+    private volatile long failed;
+    private volatile long checkpoint;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+    private final List<RowError> errors = new CopyOnWriteArrayList<>();
+
+    public PatientImportReport(String jobId, String format, long resumedAfter) {
+        this.jobId = jobId;
+        this.format = format;
+        this.resumedAfter = resumedAfter;
+        this.checkpoint = resumedAfter;
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+
+    public String getFormat() { return format; }
+
+    // Rows skipped on request, from an earlier run's checkpoint
+    public long getResumedAfter() { return resumedAfter; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getRowsRead() { return rowsRead; }
+    public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+
+    // Valid rows not saved because the patient is already on file
+    public long getSkipped() { return skipped; }
+    public void setSkipped(long skipped) { this.skipped = skipped; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    // Every row up to this one is committed; pass it as resumeAfter to continue an interrupted import
+    public long getCheckpoint() { return checkpoint; }
+    public void setCheckpoint(long checkpoint) { this.checkpoint = checkpoint; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    // The first few rejected rows; failed counts all of them
+    public List<RowError> getErrors() { return errors; }
+
+    public static class RowError {
+        private final long row;
+        private final String error;
+
+        public RowError(long row, String error) {
+            this.row = row;
+            this.error = error;
+        }
+
+        public long getRow() { return row; }
+
+        public String getError() { return error; }
+    }
+}
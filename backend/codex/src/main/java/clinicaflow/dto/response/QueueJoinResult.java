@@ -0,0 +1,50 @@
+package clinicaflow.dto.response;
+
+// Outcome of one item of a batch join
+public class QueueJoinResult {
+
+    public static final String JOINED = "JOINED";     // new queue entry created
+    public static final String EXISTING = "EXISTING"; // patient was already on the line
+    public static final String FAILED = "FAILED";     // item rejected; see error
+
+    private int index;
+    private String status;
+    private Long queueId;
+    private String queueNumber;
+    private String patientName;
+    private String error;
+
+    // Constructors
+    public QueueJoinResult() {
+    }
+
+    public QueueJoinResult(int index, String status) {
+        this.index = index;
+        this.status = status;
+    }
+
+    public static QueueJoinResult failed(int index, String error) {
+        QueueJoinResult result = new QueueJoinResult(index, FAILED);
+        result.setError(error);
+        return result;
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getQueueId() { return queueId; }
+    public void setQueueId(Long queueId) { this.queueId = queueId; }
+
+    public String getQueueNumber() { return queueNumber; }
+    public void setQueueNumber(String queueNumber) { this.queueNumber = queueNumber; }
+
+    public String getPatientName() { return patientName; }
+    public void setPatientName(String patientName) { this.patientName = patientName; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,72 @@
+package clinicaflow.dto.response;
+
+// One row of GET /api/medicalstaff/search: the staff member's directory fields and
+// login name, without the account entity (or its password hash) behind them
+public class StaffListing {
+
+    private int staffID;
+    private String name;
+    private String role;
+    private String department;
+    private String specialty;
+    private String gender;
+    private Integer age;
+    private String contactNo;
+    private String availability;
+    private Integer accountID;
+    private String username;
+
+    // Constructors
+    public StaffListing() {
+    }
+
+    // Argument order used by the criteria constructor expression in MedicalStaffService
+    public StaffListing(int staffID, String name, String role, String department, String specialty, String gender,
+            Integer age, String contactNo, String availability, Integer accountID, String username) {
+        this.staffID = staffID;
+        this.name = name;
+        this.role = role;
+        this.department = department;
+        this.specialty = specialty;
+        this.gender = gender;
+        this.age = age;
+        this.contactNo = contactNo;
+        this.availability = availability;
+        this.accountID = accountID;
+        this.username = username;
+    }
+
+    // Getters and Setters
+    public int getStaffID() { return staffID; }
+    public void setStaffID(int staffID) { this.staffID = staffID; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public String getSpecialty() { return specialty; }
+    public void setSpecialty(String specialty) { this.specialty = specialty; }
+
+    public String getGender() { return gender; }
+    public void setGender(String gender) { this.gender = gender; }
+
+    public Integer getAge() { return age; }
+    public void setAge(Integer age) { this.age = age; }
+
+    public String getContactNo() { return contactNo; }
+    public void setContactNo(String contactNo) { this.contactNo = contactNo; }
+
+    public String getAvailability() { return availability; }
+    public void setAvailability(String availability) { this.availability = availability; }
+
+    public Integer getAccountID() { return accountID; }
+    public void setAccountID(Integer accountID) { this.accountID = accountID; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+}
@@ -4,10 +4,20 @@ import java.time.LocalDate;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name="consultation")
+@EntityListeners(EntityChangeListener.class)
+@Table(name="consultation", indexes = {
+    // Per-patient timeline (GET /patients/{id}/consultations), newest first; also narrows the
+    // patient filter on GET /consultations to that patient's rows
+    @Index(name = "idx_consultation_patient_timeline", columnList = "patient_id, consultation_date, consultationID"),
+    // Filtered pages on GET /consultations; InnoDB appends the primary key, which is the page cursor
+    @Index(name = "idx_consultation_staff", columnList = "staff_id"),
+    @Index(name = "idx_consultation_date", columnList = "consultation_date")
+})
 public class ConsultationEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "consultation_ids")
+    @TableGenerator(name = "consultation_ids", table = IdGeneration.TABLE, pkColumnName = IdGeneration.SEGMENT_COLUMN,
+            valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "consultation", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private int consultationID;
     private String symptoms;
     private String diagnosis;
@@ -16,7 +26,8 @@ public class ConsultationEntity {
     private LocalDate consultationDate;
 
 
-    @ManyToOne 
+    // Lazy: list and detail reads go through ConsultationView, which selects the columns it needs in the same query
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private PatientEntity patient;
 
@@ -28,7 +39,7 @@ public class ConsultationEntity {
         this.patient = patient;
     }
 
-    @ManyToOne 
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "staff_id", nullable = false) 
     private MedicalStaffEntity medicalStaff;
 
@@ -0,0 +1,27 @@
+package clinicaflow.entity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import clinicaflow.service.EntityVersionTracker;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.Table;
+
+// Records every insert/update/delete against the entity's table in EntityVersionTracker.
+// Created through Spring's bean container, so it can be autowired like any other bean.
+public class EntityChangeListener {
+
+    @Autowired
+    private EntityVersionTracker versionTracker;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Table table = entity.getClass().getAnnotation(Table.class);
+        if (table != null && versionTracker != null) {
+            versionTracker.bumpAfterCommit(table.name());
+        }
+    }
+}
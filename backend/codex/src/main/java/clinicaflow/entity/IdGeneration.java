@@ -0,0 +1,21 @@
+package clinicaflow.entity;
+
+/**
+ * Shared settings for the pooled id generators.
+ *
+ * Entities take their ids from rows of the id_generator table (one row per
+ * entity) instead of AUTO_INCREMENT. Hibernate reserves ALLOCATION_SIZE ids per
+ * round trip and hands them out in memory, so it knows ids before inserting
+ * and can send inserts as JDBC batches. IDENTITY columns make that impossible.
+ * IdGeneratorAligner moves each row past the ids already in use at startup.
+ */
+public final class IdGeneration {
+
+    public static final String TABLE = "id_generator";
+    public static final String SEGMENT_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGeneration() {
+    }
+}
@@ -1,13 +1,25 @@
 package clinicaflow.entity;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "medical_staff")
+@DynamicUpdate // updates leave availability alone unless it changed; AvailabilityBoard's flush owns that column
+@EntityListeners({ EntityChangeListener.class, StaffDirectoryListener.class })
+@Table(name = "medical_staff", indexes = {
+    // GET /api/medicalstaff/search filters, each followed by the staffid page cursor (InnoDB appends it)
+    @Index(name = "idx_staff_department_availability", columnList = "department, availability"),
+    @Index(name = "idx_staff_role_availability", columnList = "role, availability"),
+    @Index(name = "idx_staff_specialty", columnList = "specialty"),
+    @Index(name = "idx_staff_gender_age", columnList = "gender, age")
+})
 public class MedicalStaffEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "medical_staff_ids")
+    @TableGenerator(name = "medical_staff_ids", table = IdGeneration.TABLE, pkColumnName = IdGeneration.SEGMENT_COLUMN,
+            valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "medical_staff", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private int staffID;
 
     private String name;
@@ -1,17 +1,36 @@
 package clinicaflow.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 @Entity
-@Table(name="patient")
+@EntityListeners({ EntityChangeListener.class, PatientSearchListener.class })
+@Table(name="patient", indexes = {
+    @Index(name = "idx_patient_match_key", columnList = "match_key"),
+    // Name filter on GET /patients (fname LIKE 'x%' OR lname LIKE 'x%'): one range per column,
+    // merged (sort_union) and sorted by patient_id, so a page costs the matching rows, not the table.
+    // The prefix range means patient_id order cannot come from these indexes. Gender and age are
+    // too unselective to beat walking the primary key in cursor order, so they have no index.
+    @Index(name = "idx_patient_fname", columnList = "fname"),
+    @Index(name = "idx_patient_lname", columnList = "lname")
+})
 public class PatientEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "patient_ids")
+    @TableGenerator(name = "patient_ids", table = IdGeneration.TABLE, pkColumnName = IdGeneration.SEGMENT_COLUMN,
+            valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "patient", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private int patientId;
     private String fname;
     private String lname;
@@ -19,7 +38,36 @@ public class PatientEntity {
     private String gender;
     private String contactNo;
     private String address;
-    
+
+    // Normalized name|contact|age, kept in sync on every write; see matchKey()
+    @JsonIgnore
+    @Column(name = "match_key", length = 191)
+    private String matchKey;
+
+    /**
+     * Lookup key for recognising a returning patient: lower-cased trimmed names,
+     * the digits of the contact number, and the age. Null without a contact
+     * number, since name and age alone are too weak to merge records on.
+     */
+    public static String matchKey(String firstName, String lastName, String contactNo, int age) {
+        String digits = contactNo == null ? "" : contactNo.replaceAll("\\D", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        String key = normalize(firstName) + "|" + normalize(lastName) + "|" + digits + "|" + age;
+        return key.length() > 191 ? key.substring(0, 191) : key;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void refreshMatchKey() {
+        matchKey = matchKey(fname, lname, contactNo, age);
+    }
+
     // getters and setters
     public int getPatientId() {
         return patientId;
@@ -81,4 +129,8 @@ public class PatientEntity {
         this.address = address;
     }
 
+    public String getMatchKey() {
+        return matchKey;
+    }
+
 }
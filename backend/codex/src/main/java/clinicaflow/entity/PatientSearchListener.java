@@ -0,0 +1,45 @@
+package clinicaflow.entity;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import clinicaflow.service.PatientSearchIndex;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// Feeds patient inserts, updates and deletes to PatientSearchIndex, which applies them on commit,
+// whichever service wrote them (PatientService, queue joins, ...).
+public class PatientSearchListener {
+
+    // Looked up on use: the index itself needs the EntityManagerFactory that creates this listener
+    @Autowired
+    private ObjectProvider<PatientSearchIndex> searchIndex;
+
+    // Resolved once available; a bulk import saves thousands of rows through this listener
+    private volatile PatientSearchIndex resolved;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(PatientEntity patient) {
+        PatientSearchIndex index = index();
+        if (index != null) {
+            index.indexAfterCommit(patient);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(PatientEntity patient) {
+        PatientSearchIndex index = index();
+        if (index != null) {
+            index.removeAfterCommit(patient.getPatientId());
+        }
+    }
+
+    private PatientSearchIndex index() {
+        if (resolved == null && searchIndex != null) {
+            resolved = searchIndex.getIfAvailable();
+        }
+        return resolved;
+    }
+}
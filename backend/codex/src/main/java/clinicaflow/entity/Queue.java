@@ -1,13 +1,34 @@
 package clinicaflow.entity;
 
+import java.time.LocalDateTime;
+
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "queue")
+@EntityListeners(EntityChangeListener.class)
+@Table(name = "queue", indexes = {
+    @Index(name = "idx_queue_change_seq", columnList = "change_seq"),
+    @Index(name = "idx_queue_arrived_at", columnList = "arrived_at"),
+    @Index(name = "idx_queue_status_arrived_at", columnList = "status, arrived_at"),
+    // Non-unique: a returning patient has one entry per visit (see SchemaUpgrader)
+    @Index(name = "idx_queue_patient", columnList = "patient_id")
+})
 public class Queue {
 
+    public static final String STATUS_WAITING = "WAITING";
+    public static final String STATUS_CONSULTING = "CONSULTING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    public static final String UNASSIGNED = "Unassigned";
+    public static final String DEFAULT_DEPARTMENT = "General Medicine";
+
+    // Triage levels: 1 = most urgent ... 5 = least urgent
+    public static final int DEFAULT_PRIORITY = 3;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "queue_ids")
+    @TableGenerator(name = "queue_ids", table = IdGeneration.TABLE, pkColumnName = IdGeneration.SEGMENT_COLUMN,
+            valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "queue", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "queue_number")
@@ -16,14 +37,46 @@ public class Queue {
     @Column(name = "status")
     private String status;
 
+    // Display only ("hh:mm a"); arrivedAt is the real timestamp
     @Column(name = "arrival_time")
     private String arrivalTime; 
 
+    @Column(name = "arrived_at")
+    private LocalDateTime arrivedAt;
+
+    // First time the entry became CONSULTING / COMPLETED, and the latest status change
+    @Column(name = "called_at")
+    private LocalDateTime calledAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "status_changed_at")
+    private LocalDateTime statusChangedAt;
+
+    // The doctor's staffID; assignedDoctor keeps their name for display ("Unassigned" when null)
+    @Column(name = "assigned_doctor_id")
+    private Integer assignedDoctorId;
+
     @Column(name = "assigned_doctor")
     private String assignedDoctor;
 
-    // LINK TO PATIENT 
-    @OneToOne(cascade = CascadeType.ALL) // Cascade allows saving patient automatically when saving queue
+    @Column(name = "priority")
+    private Integer priority;
+
+    @Column(name = "department")
+    private String department;
+
+    // Bumped from the queue change sequence on every write; drives GET /api/queue/changes
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    // Filled in by WaitTimePredictor for WAITING entries; not stored
+    @Transient
+    private Integer estimatedWaitMinutes;
+
+    // LINK TO PATIENT (a returning patient has one entry per visit; removing an entry keeps the patient)
+    @ManyToOne(cascade = { CascadeType.PERSIST, CascadeType.MERGE })
     @JoinColumn(name = "patient_id", referencedColumnName = "patientId")
     private PatientEntity patient;
 
@@ -42,6 +95,21 @@ public class Queue {
     public String getArrivalTime() { return arrivalTime; }
     public void setArrivalTime(String arrivalTime) { this.arrivalTime = arrivalTime; }
 
+    public LocalDateTime getArrivedAt() { return arrivedAt; }
+    public void setArrivedAt(LocalDateTime arrivedAt) { this.arrivedAt = arrivedAt; }
+
+    public LocalDateTime getCalledAt() { return calledAt; }
+    public void setCalledAt(LocalDateTime calledAt) { this.calledAt = calledAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    public LocalDateTime getStatusChangedAt() { return statusChangedAt; }
+    public void setStatusChangedAt(LocalDateTime statusChangedAt) { this.statusChangedAt = statusChangedAt; }
+
+    public Integer getAssignedDoctorId() { return assignedDoctorId; }
+    public void setAssignedDoctorId(Integer assignedDoctorId) { this.assignedDoctorId = assignedDoctorId; }
+
     public String getAssignedDoctor() { return assignedDoctor; }
     public void setAssignedDoctor(String assignedDoctor) { this.assignedDoctor = assignedDoctor; }
 
@@ -54,6 +122,18 @@ public class Queue {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    public Integer getPriority() { return priority; }
+    public void setPriority(Integer priority) { this.priority = priority; }
+
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+
+    public Integer getEstimatedWaitMinutes() { return estimatedWaitMinutes; }
+    public void setEstimatedWaitMinutes(Integer estimatedWaitMinutes) { this.estimatedWaitMinutes = estimatedWaitMinutes; }
+
     public PatientEntity getPatient() { return patient; }
     public void setPatient(PatientEntity patient) { this.patient = patient; }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package clinicaflow.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+// Persistent high-water mark for numbers handed out by an in-memory allocator.
+// One row per counter, e.g. "MAIN:2025-01-31" for that clinic's queue numbers on that day.
+@Entity
+@Table(name = "queue_counter")
+public class QueueCounterEntity {
+
+    @Id
+    @Column(name = "counter_name", length = 64)
+    private String counterName;
+
+    // Last value reserved by any allocator; the next block starts right after it
+    @Column(name = "high_value", nullable = false)
+    private long highValue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public QueueCounterEntity() {}
+
+    public QueueCounterEntity(String counterName, long highValue) {
+        this.counterName = counterName;
+        this.highValue = highValue;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getCounterName() { return counterName; }
+    public void setCounterName(String counterName) { this.counterName = counterName; }
+
+    public long getHighValue() { return highValue; }
+    public void setHighValue(long highValue) { this.highValue = highValue; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,42 @@
+package clinicaflow.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+// Marks a deleted queue entry so delta-sync clients learn about the removal
+@Entity
+@Table(name = "queue_tombstone", indexes = {
+    @Index(name = "idx_queue_tombstone_change_seq", columnList = "change_seq")
+})
+public class QueueTombstone {
+
+    @Id
+    @Column(name = "queue_id")
+    private Long queueId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // Constructors
+    public QueueTombstone() {}
+
+    public QueueTombstone(Long queueId, Long changeSeq) {
+        this.queueId = queueId;
+        this.changeSeq = changeSeq;
+        this.deletedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getQueueId() { return queueId; }
+    public void setQueueId(Long queueId) { this.queueId = queueId; }
+
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
@@ -0,0 +1,49 @@
+package clinicaflow.entity;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import clinicaflow.service.StaffDirectory;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// Feeds staff and login account inserts, updates and deletes to StaffDirectory, which applies them on commit,
+// whichever service wrote them (MedicalStaffService, registration, password changes, ...).
+public class StaffDirectoryListener {
+
+    // Looked up on use: the directory needs repositories built on the EntityManagerFactory that creates this listener
+    @Autowired
+    private ObjectProvider<StaffDirectory> directory;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        StaffDirectory staffDirectory = directory();
+        if (staffDirectory == null) {
+            return;
+        }
+        if (entity instanceof MedicalStaffEntity staff) {
+            staffDirectory.saveAfterCommit(staff);
+        } else if (entity instanceof UserAccountEntity account) {
+            staffDirectory.accountAfterCommit(account, false);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        StaffDirectory staffDirectory = directory();
+        if (staffDirectory == null) {
+            return;
+        }
+        if (entity instanceof MedicalStaffEntity staff) {
+            staffDirectory.removeAfterCommit(staff.getStaffID());
+        } else if (entity instanceof UserAccountEntity account) {
+            staffDirectory.accountAfterCommit(account, true);
+        }
+    }
+
+    private StaffDirectory directory() {
+        return directory == null ? null : directory.getIfAvailable();
+    }
+}
@@ -5,11 +5,14 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners({ EntityChangeListener.class, StaffDirectoryListener.class })
 @Table(name = "user_account")
 public class UserAccountEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_account_ids")
+    @TableGenerator(name = "user_account_ids", table = IdGeneration.TABLE, pkColumnName = IdGeneration.SEGMENT_COLUMN,
+            valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "user_account", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private int accountID;
 
     @Column(nullable = false, unique = true)
@@ -3,8 +3,17 @@ package clinicaflow.entity;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * A finished (or abandoned) queue visit moved out of the live queue table by
+ * QueueArchiver. visitorName, visitTime and purpose are the patient's name,
+ * arrival time and department at the time of archiving.
+ */
 @Entity
-@Table(name = "visit_history")
+@Table(name = "visit_history", indexes = {
+    @Index(name = "uk_visit_history_queue_id", columnList = "queue_id", unique = true),
+    @Index(name = "idx_visit_history_visit_time", columnList = "visit_time"),
+    @Index(name = "idx_visit_history_status_visit_time", columnList = "status, visit_time")
+})
 public class VisitHistory {
 
     @Id
@@ -20,6 +29,38 @@ public class VisitHistory {
     @Column(name = "purpose")
     private String purpose;
 
+    // Id the entry had in the queue table
+    @Column(name = "queue_id")
+    private Long queueId;
+
+    @Column(name = "queue_number")
+    private String queueNumber;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "assigned_doctor_id")
+    private Integer assignedDoctorId;
+
+    @Column(name = "assigned_doctor")
+    private String assignedDoctor;
+
+    @Column(name = "priority")
+    private Integer priority;
+
+    @ManyToOne
+    @JoinColumn(name = "patient_id", referencedColumnName = "patientId")
+    private PatientEntity patient;
+
+    @Column(name = "called_at")
+    private LocalDateTime calledAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
     // Constructors
     public VisitHistory() {}
 
@@ -29,6 +70,23 @@ public class VisitHistory {
         this.purpose = purpose;
     }
 
+    // Unsaved view of a live entry, so history reads can return both tables in one shape
+    public static VisitHistory of(Queue queue) {
+        PatientEntity patient = queue.getPatient();
+        VisitHistory visit = new VisitHistory(patient == null ? null : patient.getFullName(),
+                queue.getArrivedAt(), queue.getDepartment());
+        visit.setQueueId(queue.getId());
+        visit.setQueueNumber(queue.getQueueNumber());
+        visit.setStatus(queue.getStatus());
+        visit.setAssignedDoctorId(queue.getAssignedDoctorId());
+        visit.setAssignedDoctor(queue.getAssignedDoctor());
+        visit.setPriority(queue.getPriority());
+        visit.setPatient(patient);
+        visit.setCalledAt(queue.getCalledAt());
+        visit.setCompletedAt(queue.getCompletedAt());
+        return visit;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -61,4 +119,84 @@ public class VisitHistory {
     public void setPurpose(String purpose) {
         this.purpose = purpose;
     }
+
+    public Long getQueueId() {
+        return queueId;
+    }
+
+    public void setQueueId(Long queueId) {
+        this.queueId = queueId;
+    }
+
+    public String getQueueNumber() {
+        return queueNumber;
+    }
+
+    public void setQueueNumber(String queueNumber) {
+        this.queueNumber = queueNumber;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAssignedDoctorId() {
+        return assignedDoctorId;
+    }
+
+    public void setAssignedDoctorId(Integer assignedDoctorId) {
+        this.assignedDoctorId = assignedDoctorId;
+    }
+
+    public String getAssignedDoctor() {
+        return assignedDoctor;
+    }
+
+    public void setAssignedDoctor(String assignedDoctor) {
+        this.assignedDoctor = assignedDoctor;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public PatientEntity getPatient() {
+        return patient;
+    }
+
+    public void setPatient(PatientEntity patient) {
+        this.patient = patient;
+    }
+
+    public LocalDateTime getCalledAt() {
+        return calledAt;
+    }
+
+    public void setCalledAt(LocalDateTime calledAt) {
+        this.calledAt = calledAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
 }
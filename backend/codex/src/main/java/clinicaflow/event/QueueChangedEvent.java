@@ -0,0 +1,36 @@
+package clinicaflow.event;
+
+import clinicaflow.entity.Queue;
+
+// Published by QueueService whenever a queue entry is created, changed or removed.
+// Listeners that push to clients should run after commit so they never expose rolled back rows.
+public class QueueChangedEvent {
+
+    public enum Type { JOINED, UPDATED, REMOVED }
+
+    private final Type type;
+    private final Long queueId;
+    private final Queue queue; // null for REMOVED
+
+    public QueueChangedEvent(Type type, Long queueId, Queue queue) {
+        this.type = type;
+        this.queueId = queueId;
+        this.queue = queue;
+    }
+
+    public static QueueChangedEvent joined(Queue queue) {
+        return new QueueChangedEvent(Type.JOINED, queue.getId(), queue);
+    }
+
+    public static QueueChangedEvent updated(Queue queue) {
+        return new QueueChangedEvent(Type.UPDATED, queue.getId(), queue);
+    }
+
+    public static QueueChangedEvent removed(Long queueId) {
+        return new QueueChangedEvent(Type.REMOVED, queueId, null);
+    }
+
+    public Type getType() { return type; }
+    public Long getQueueId() { return queueId; }
+    public Queue getQueue() { return queue; }
+}
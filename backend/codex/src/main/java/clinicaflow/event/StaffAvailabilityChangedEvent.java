@@ -0,0 +1,20 @@
+package clinicaflow.event;
+
+// Published by AvailabilityBoard when a staff member's live availability changes.
+// The board has already applied it; the database row follows on the next flush.
+public class StaffAvailabilityChangedEvent {
+
+    private final int staffId;
+    private final String department;
+    private final String availability; // null when cleared
+
+    public StaffAvailabilityChangedEvent(int staffId, String department, String availability) {
+        this.staffId = staffId;
+        this.department = department;
+        this.availability = availability;
+    }
+
+    public int getStaffId() { return staffId; }
+    public String getDepartment() { return department; }
+    public String getAvailability() { return availability; }
+}
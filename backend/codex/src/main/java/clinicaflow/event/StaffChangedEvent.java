@@ -0,0 +1,17 @@
+package clinicaflow.event;
+
+// Published by StaffDirectory once it has applied a committed staff insert, update or delete,
+// so in-memory views of the staff (the doctor scheduler) can re-read that one member from it.
+public class StaffChangedEvent {
+
+    private final int staffId;
+    private final boolean removed;
+
+    public StaffChangedEvent(int staffId, boolean removed) {
+        this.staffId = staffId;
+        this.removed = removed;
+    }
+
+    public int getStaffId() { return staffId; }
+    public boolean isRemoved() { return removed; }
+}
@@ -1,10 +1,61 @@
 package clinicaflow.repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import clinicaflow.dto.response.ConsultationView;
 import clinicaflow.entity.ConsultationEntity;
 
 @Repository
 public interface ConsultationRepository extends JpaRepository<ConsultationEntity, Integer> {
 
+    // Consultation, patient and staff columns read in a single joined SELECT; no entities, so no per-row association loads
+    String VIEW_SELECT = "SELECT new clinicaflow.dto.response.ConsultationView(c.consultationID, c.consultationDate, " +
+           "c.symptoms, c.diagnosis, c.medicinePrescribed, c.remarks, " +
+           "p.patientId, p.fname, p.lname, p.age, p.gender, p.contactNo, " +
+           "s.staffID, s.name, s.role, s.department, s.specialty) " +
+           "FROM ConsultationEntity c JOIN c.patient p JOIN c.medicalStaff s";
+
+    @Query(VIEW_SELECT + " ORDER BY c.consultationID")
+    List<ConsultationView> findAllViews();
+
+    @Query(VIEW_SELECT + " WHERE c.consultationID = :id")
+    Optional<ConsultationView> findViewById(@Param("id") int id);
+
+    // One patient's consultations, newest first, on idx_consultation_patient_timeline. Undated rows sort last.
+    String TIMELINE_ORDER = " ORDER BY c.consultationDate DESC, c.consultationID DESC";
+
+    @Query(VIEW_SELECT + " WHERE c.patient.patientId = :patientId" + TIMELINE_ORDER)
+    List<ConsultationView> findTimeline(@Param("patientId") int patientId, Limit limit);
+
+    // Continues after a dated row: earlier dates, the same date with a lower id, then the undated rows
+    @Query(VIEW_SELECT + " WHERE c.patient.patientId = :patientId AND (c.consultationDate < :date " +
+           "OR (c.consultationDate = :date AND c.consultationID < :id) OR c.consultationDate IS NULL)" + TIMELINE_ORDER)
+    List<ConsultationView> findTimelineAfter(@Param("patientId") int patientId, @Param("date") LocalDate date,
+            @Param("id") int id, Limit limit);
+
+    // Continues after an undated row
+    @Query(VIEW_SELECT + " WHERE c.patient.patientId = :patientId AND c.consultationDate IS NULL " +
+           "AND c.consultationID < :id" + TIMELINE_ORDER)
+    List<ConsultationView> findUndatedTimelineAfter(@Param("patientId") int patientId, @Param("id") int id, Limit limit);
+
+    // Per doctor: staffID, department, number of consultations and number of days worked
+    @Query("SELECT s.staffID, s.department, COUNT(c), COUNT(DISTINCT c.consultationDate) " +
+           "FROM ConsultationEntity c JOIN c.medicalStaff s GROUP BY s.staffID, s.name, s.department")
+    List<Object[]> countConsultationsPerStaff();
+
+    // One row, one pass: total, today, weekStart through today, distinct patients (read off the patient_id column, no join).
+    // Booked follow-ups dated after today count in the total only.
+    @Query("SELECT COUNT(c), " +
+           "COALESCE(SUM(CASE WHEN c.consultationDate >= :today AND c.consultationDate < :tomorrow THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN c.consultationDate >= :weekStart AND c.consultationDate < :tomorrow THEN 1 ELSE 0 END), 0), " +
+           "COUNT(DISTINCT c.patient.patientId) FROM ConsultationEntity c")
+    List<Object[]> summarize(@Param("today") LocalDate today, @Param("tomorrow") LocalDate tomorrow,
+            @Param("weekStart") LocalDate weekStart);
 }
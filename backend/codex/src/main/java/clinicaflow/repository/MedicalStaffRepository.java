@@ -1,9 +1,13 @@
 package clinicaflow.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import clinicaflow.entity.MedicalStaffEntity;
@@ -12,34 +16,17 @@ import clinicaflow.entity.MedicalStaffEntity;
 public interface MedicalStaffRepository extends JpaRepository<MedicalStaffEntity, Integer> {
     
     Optional<MedicalStaffEntity> findByUserAccountAccountID(int accountId);
-    
-    List<MedicalStaffEntity> findByGenderIgnoreCase(String gender);
-    
-    List<MedicalStaffEntity> findByRoleIgnoreCase(String role);
-    
-    List<MedicalStaffEntity> findByAgeBetween(int minAge, int maxAge);
-    
-    List<MedicalStaffEntity> findByRoleAndGender(String role, String gender);
-    
-    List<MedicalStaffEntity> findBySpecialtyIgnoreCase(String specialty);
-    
-    // NEW: Department queries
-    List<MedicalStaffEntity> findByDepartmentIgnoreCase(String department);
-    
-    List<MedicalStaffEntity> findByDepartmentAndRole(String department, String role);
-    
-    List<MedicalStaffEntity> findByDepartmentAndGender(String department, String gender);
-    
-    List<MedicalStaffEntity> findByDepartmentAndSpecialty(String department, String specialty);
-    
-    // NEW: Availability queries
-    List<MedicalStaffEntity> findByAvailabilityIgnoreCase(String availability);
-    
-    List<MedicalStaffEntity> findByAvailabilityIsNull();
-    
-    List<MedicalStaffEntity> findByAvailabilityIsNotNull();
-    
-    List<MedicalStaffEntity> findByRoleAndAvailability(String role, String availability);
-    
-    List<MedicalStaffEntity> findByDepartmentAndAvailability(String department, String availability);
-}
\ No newline at end of file
+
+    // Staff with their accounts in one SELECT, for loading StaffDirectory
+    @Query("select s from MedicalStaffEntity s left join fetch s.userAccount order by s.staffID")
+    List<MedicalStaffEntity> findAllWithAccounts();
+
+    // staffID, department, availability of everyone, for seeding AvailabilityBoard
+    @Query("select s.staffID, s.department, s.availability from MedicalStaffEntity s")
+    List<Object[]> findAvailability();
+
+    // AvailabilityBoard's coalesced writes; a bulk UPDATE, so entity listeners do not see it
+    @Modifying
+    @Query("update MedicalStaffEntity s set s.availability = :availability where s.staffID in :ids")
+    int updateAvailability(@Param("ids") Collection<Integer> ids, @Param("availability") String availability);
+}
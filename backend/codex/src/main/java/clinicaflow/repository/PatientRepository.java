@@ -1,10 +1,32 @@
 package clinicaflow.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import clinicaflow.entity.PatientEntity;
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface PatientRepository extends JpaRepository<PatientEntity, Integer> {
+public interface PatientRepository extends JpaRepository<PatientEntity, Integer>, JpaSpecificationExecutor<PatientEntity> {
+
+    // Returning-patient lookup on idx_patient_match_key; oldest record wins if there are duplicates
+    Optional<PatientEntity> findFirstByMatchKeyOrderByPatientIdAsc(String matchKey);
+
+    List<PatientEntity> findByMatchKeyIn(Collection<String> matchKeys);
+
+    // Which of these keys are already on file, without loading the patients
+    @Query("select distinct p.matchKey from PatientEntity p where p.matchKey in :matchKeys")
+    List<String> findExistingMatchKeys(@Param("matchKeys") Collection<String> matchKeys);
 
+    // Whole-table scan read through a cursor (useCursorFetch) instead of loading every row at once; needs a transaction
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    Stream<PatientEntity> streamAllBy();
 }
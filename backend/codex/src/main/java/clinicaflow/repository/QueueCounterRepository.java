@@ -0,0 +1,8 @@
+package clinicaflow.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import clinicaflow.entity.QueueCounterEntity;
+
+public interface QueueCounterRepository extends JpaRepository<QueueCounterEntity, String> {
+}
@@ -1,12 +1,41 @@
 package clinicaflow.repository;
 import clinicaflow.entity.Queue;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
 public interface QueueRepository extends JpaRepository<Queue, Long> {
-    // Custom query to get the very last queue entry ordered by ID descending
-    @Query(value = "SELECT * FROM queue ORDER BY id DESC LIMIT 1", nativeQuery = true)
-    Optional<Queue> findLastQueueEntry();
+    // Rows written after the given change sequence (index range read on change_seq)
+    List<Queue> findByChangeSeqGreaterThanOrderByChangeSeqAsc(Long changeSeq);
+
+    // Time-range reads on the arrived_at / (status, arrived_at) indexes
+    List<Queue> findByArrivedAtGreaterThanEqualAndArrivedAtLessThanOrderByArrivedAtAsc(LocalDateTime from, LocalDateTime to);
+
+    List<Queue> findByStatusAndArrivedAtGreaterThanEqualAndArrivedAtLessThanOrderByArrivedAtAsc(String status, LocalDateTime from, LocalDateTime to);
+
+    long countByStatusAndArrivedAtGreaterThanEqualAndArrivedAtLessThan(String status, LocalDateTime from, LocalDateTime to);
+
+    // A patient's entry that is still on the line, if any (patient_id foreign key index)
+    Optional<Queue> findFirstByPatientPatientIdAndStatusInOrderByIdDesc(int patientId, Collection<String> statuses);
+
+    List<Queue> findByPatientPatientIdInAndStatusIn(Collection<Integer> patientIds, Collection<String> statuses);
+
+    // Rows that no longer belong on the live line: earlier days (or no arrival stamp) and long-completed visits
+    @Query("SELECT q.id FROM Queue q WHERE q.arrivedAt IS NULL OR q.arrivedAt < :dayStart "
+            + "OR (UPPER(q.status) = 'COMPLETED' AND q.completedAt < :completedBefore) ORDER BY q.id")
+    List<Long> findArchivableIds(@Param("dayStart") LocalDateTime dayStart,
+            @Param("completedBefore") LocalDateTime completedBefore, Pageable pageable);
+
+    // Locks a single row, e.g. the entry a doctor is about to call
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT q FROM Queue q WHERE q.id = :id")
+    Optional<Queue> findForUpdate(@Param("id") Long id);
 }
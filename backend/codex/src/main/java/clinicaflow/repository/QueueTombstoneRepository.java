@@ -0,0 +1,30 @@
+package clinicaflow.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import clinicaflow.entity.QueueTombstone;
+
+public interface QueueTombstoneRepository extends JpaRepository<QueueTombstone, Long> {
+    List<QueueTombstone> findByChangeSeqGreaterThanOrderByChangeSeqAsc(Long changeSeq);
+
+    // One tombstone per archived queue row, all under the same change sequence
+    @Modifying
+    @Query("INSERT INTO QueueTombstone (queueId, changeSeq, deletedAt) "
+            + "SELECT q.id, :changeSeq, :deletedAt FROM Queue q WHERE q.id IN :ids")
+    int tombstoneQueueRows(@Param("ids") Collection<Long> ids, @Param("changeSeq") Long changeSeq,
+            @Param("deletedAt") LocalDateTime deletedAt);
+
+    @Query("SELECT MAX(t.changeSeq) FROM QueueTombstone t WHERE t.deletedAt < :before")
+    Long findLastChangeSeqDeletedBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM QueueTombstone t WHERE t.changeSeq <= :changeSeq")
+    int deleteUpToChangeSeq(@Param("changeSeq") Long changeSeq);
+}
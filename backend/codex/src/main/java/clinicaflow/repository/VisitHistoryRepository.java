@@ -1,41 +1,30 @@
 package clinicaflow.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import clinicaflow.entity.VisitHistory;
 
 public interface VisitHistoryRepository extends JpaRepository<VisitHistory, Long> {
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    // Copies queue rows in one INSERT ... SELECT; the rows never pass through the application.
+    // Rows without an arrival stamp take the nearest known time, so they stay in time-range reads.
+    @Modifying
+    @Query("INSERT INTO VisitHistory (visitorName, visitTime, purpose, queueId, queueNumber, status, assignedDoctorId, "
+            + "assignedDoctor, priority, patient, calledAt, completedAt, archivedAt) "
+            + "SELECT CONCAT(p.fname, ' ', p.lname), COALESCE(q.arrivedAt, q.calledAt, q.statusChangedAt, :archivedAt), q.department, q.id, q.queueNumber, q.status, "
+            + "q.assignedDoctorId, q.assignedDoctor, q.priority, p, q.calledAt, q.completedAt, :archivedAt "
+            + "FROM Queue q LEFT JOIN q.patient p WHERE q.id IN :ids")
+    int archiveQueueRows(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
 
+    // Time-range reads on the visit_time / (status, visit_time) indexes
+    List<VisitHistory> findByVisitTimeGreaterThanEqualAndVisitTimeLessThanOrderByVisitTimeAsc(LocalDateTime from, LocalDateTime to);
 
+    List<VisitHistory> findByStatusAndVisitTimeGreaterThanEqualAndVisitTimeLessThanOrderByVisitTimeAsc(String status, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,23 @@
+package clinicaflow.security;
+
+import java.security.Principal;
+
+import io.jsonwebtoken.Claims;
+
+// The logged-in account as its token describes it; built from the claims alone, without a database read.
+// getName() is the username, so Authentication.getName() keeps returning it.
+public record AuthenticatedUser(int accountID, String username, String role) implements Principal {
+
+    public static AuthenticatedUser of(Claims claims) {
+        Object id = claims.get("id");
+        if (!(id instanceof Number number)) {
+            throw new IllegalArgumentException("Token has no account id");
+        }
+        return new AuthenticatedUser(number.intValue(), claims.getSubject(), claims.get("role", String.class));
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,58 @@
+package clinicaflow.security;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authenticates requests that carry "Authorization: Bearer <token>". The principal
+ * is an AuthenticatedUser built from the token's claims, with ROLE_<role> as its
+ * authority, so no request spends a query on who is asking. A missing, malformed,
+ * badly signed or expired token leaves the request anonymous; WebSecurityConfig
+ * decides what anonymous requests may do.
+ *
+ * Created by WebSecurityConfig rather than as a bean, so it runs once, inside the
+ * security chain, and not a second time as a plain servlet filter.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtUtils jwtUtils;
+
+    public JwtAuthenticationFilter(JwtUtils jwtUtils) {
+        this.jwtUtils = jwtUtils;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            String token = header.substring(BEARER.length()).trim();
+            try {
+                AuthenticatedUser user = AuthenticatedUser.of(jwtUtils.validateToken(token));
+                List<SimpleGrantedAuthority> authorities = user.role() == null ? List.of()
+                        : List.of(new SimpleGrantedAuthority("ROLE_" + user.role().trim().toUpperCase(Locale.ROOT)));
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(user, null, authorities));
+                SecurityContextHolder.setContext(context);
+            } catch (JwtException | IllegalArgumentException e) {
+                SecurityContextHolder.clearContext(); // not authenticated
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -1,15 +1,19 @@
 package clinicaflow.security;
 
 import clinicaflow.entity.UserAccountEntity;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
@@ -21,15 +25,61 @@ public class JwtUtils {
 
     private static final long EXPIRATION_TIME = 86400000; // 24 hours in milliseconds
 
+    // Built once: the HMAC key and the parser that checks signatures with it are thread-safe
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    @Value("${clinicaflow.security.token-cache-size:10000}")
+    private int tokenCacheSize;
+
+    // Recently verified tokens by signature, least recently used first; a hit skips the HMAC check and JSON parsing
+    private final Map<String, VerifiedToken> verified = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            return size() > tokenCacheSize;
+        }
+    };
+
     // Generate token for user
     public String generateToken(UserAccountEntity user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", user.getRole());
         claims.put("id", user.getAccountID());
-        
+
         return createToken(claims, user.getUsername());
     }
 
+    /**
+     * Claims of a correctly signed, unexpired token; throws JwtException otherwise.
+     * A token seen recently is answered from the cache: the whole token must match
+     * the one that was verified, and its expiry is checked again on every hit.
+     * Callers must not modify the returned claims.
+     */
+    public Claims validateToken(String token) {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        VerifiedToken cached;
+        synchronized (verified) {
+            cached = verified.get(signature);
+        }
+        if (cached != null && cached.token.equals(token)) {
+            if (System.currentTimeMillis() < cached.expiresAt) {
+                return cached.claims;
+            }
+            synchronized (verified) {
+                verified.remove(signature); // expired: let the parser reject it below
+            }
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (tokenCacheSize > 0) {
+            long expiresAt = claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime();
+            synchronized (verified) {
+                verified.put(signature, new VerifiedToken(token, claims, expiresAt));
+            }
+        }
+        return claims;
+    }
+
     // Create the token
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
@@ -37,13 +87,10 @@ public class JwtUtils {
                 .setSubject(subject) // Usually the email/username
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    // Get the signing key
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(java.util.Base64.getEncoder().encodeToString(SECRET_KEY.getBytes()));
-        return Keys.hmacShaKeyFor(keyBytes);
+    private record VerifiedToken(String token, Claims claims, long expiresAt) {
     }
-}
\ No newline at end of file
+}
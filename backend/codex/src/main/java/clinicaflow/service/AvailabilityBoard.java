@@ -0,0 +1,358 @@
+package clinicaflow.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.entity.MedicalStaffEntity;
+import clinicaflow.event.StaffAvailabilityChangedEvent;
+import clinicaflow.repository.MedicalStaffRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Live availability (available / busy / offline / unset) of every staff member,
+ * with per-department counts. This is what PUT /api/medicalstaff/{id}/availability,
+ * GET /api/medicalstaff/availability/{status}, callNext and the wait-time
+ * estimates read and write; staff reads from StaffDirectory show it too.
+ *
+ * Each staff member's state is one immutable Slot behind an AtomicReference and
+ * changes by compare-and-set, so toggles never lock or wait on each other. The
+ * department counts are atomic counters adjusted after each successful swap; a
+ * reader may briefly see a count one off while a swap is in flight.
+ *
+ * Toggles only mark the row dirty. flush() writes all dirty rows every flush-ms
+ * with one UPDATE per status, so a doctor flipping busy/available ten times between
+ * flushes costs one write; a failed flush keeps the rows dirty for the next one.
+ * Committed staff inserts, updates and deletes reach the board through
+ * StaffDirectory; updates never write the availability back (see saved()).
+ * Seeded from the database on first use; like the queue engine, the board
+ * assumes one application instance.
+ */
+@Service
+public class AvailabilityBoard {
+
+    public static final String AVAILABLE = "available";
+    public static final String BUSY = "busy";
+    public static final String OFFLINE = "offline";
+
+    // Index into DepartmentCounts.counts; UNSET covers null and any legacy value
+    private static final List<String> STATUSES = List.of(AVAILABLE, BUSY, OFFLINE);
+    private static final int UNSET = STATUSES.size();
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityBoard.class);
+
+    @Autowired
+    private MedicalStaffRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityVersionTracker versionTracker;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentHashMap<Integer, AtomicReference<Slot>> slots = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, DepartmentCounts> departments = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    private final Object seedLock = new Object();
+    private volatile boolean seeded;
+
+    private final LongAdder toggles = new LongAdder();
+    private final LongAdder rowsFlushed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    public static boolean isValid(String availability) {
+        String value = canonical(availability);
+        return value == null || STATUSES.contains(value);
+    }
+
+    // Lower-cased and trimmed; blank means unset (null)
+    public static String canonical(String availability) {
+        if (availability == null || availability.isBlank()) {
+            return null;
+        }
+        return availability.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sets a staff member's availability. Returns false if the board does not know
+     * the staff member (never seen, or deleted); the caller decides whether to read
+     * the row through StaffDirectory and retry.
+     */
+    public boolean set(int staffId, String availability) {
+        seed();
+        String value = canonical(availability);
+        AtomicReference<Slot> ref = slots.get(staffId);
+        if (ref == null) {
+            return false;
+        }
+        while (true) {
+            Slot previous = ref.get();
+            if (previous == null || previous == Slot.REMOVED) {
+                return false;
+            }
+            if (Objects.equals(previous.availability, value)) {
+                return true;
+            }
+            Slot next = new Slot(previous.department, value);
+            if (ref.compareAndSet(previous, next)) {
+                toggles.increment();
+                dirty.add(staffId);
+                changed(staffId, previous, next);
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(int staffId) {
+        return slot(staffId) != null;
+    }
+
+    // Shows the live availability on a staff copy; leaves it alone if the board does not know the staff member
+    public MedicalStaffEntity overlay(MedicalStaffEntity staff) {
+        Slot slot = slot(staff.getStaffID());
+        if (slot != null) {
+            staff.setAvailability(slot.availability);
+        }
+        return staff;
+    }
+
+    // staffIDs with this availability, in order
+    public List<Integer> staffWith(String availability) {
+        seed();
+        String value = canonical(availability);
+        List<Integer> ids = new ArrayList<>();
+        slots.forEach((staffId, ref) -> {
+            Slot slot = ref.get();
+            if (slot != null && slot != Slot.REMOVED && Objects.equals(slot.availability, value)) {
+                ids.add(staffId);
+            }
+        });
+        ids.sort(null);
+        return ids;
+    }
+
+    // Available staff in a department, for queue estimates; O(1)
+    public int availableIn(String department) {
+        seed();
+        DepartmentCounts counts = departments.get(departmentKey(department));
+        return counts == null ? 0 : Math.max(0, counts.counts.get(STATUSES.indexOf(AVAILABLE)));
+    }
+
+    // {department: {available, busy, offline, unset}} for GET /api/medicalstaff/availability/counts
+    public Map<String, Map<String, Integer>> counts() {
+        seed();
+        Map<String, Map<String, Integer>> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        departments.values().forEach(department -> {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (int i = 0; i < STATUSES.size(); i++) {
+                counts.put(STATUSES.get(i), Math.max(0, department.counts.get(i)));
+            }
+            counts.put("unset", Math.max(0, department.counts.get(UNSET)));
+            result.put(department.name, counts);
+        });
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked", slots.size());
+        stats.put("pendingWrites", dirty.size());
+        stats.put("toggles", toggles.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("rowsFlushed", rowsFlushed.sum());
+        return stats;
+    }
+
+    /**
+     * A committed insert or update of the row (StaffDirectory calls this after commit).
+     * A new row brings its availability; for a row the board already tracks only the
+     * department is taken, since the board's availability is the live one and the
+     * row's may be a flush behind. Explicit availability changes go through set().
+     */
+    public void saved(MedicalStaffEntity staff) {
+        seed();
+        while (true) {
+            AtomicReference<Slot> ref = slots.computeIfAbsent(staff.getStaffID(), id -> new AtomicReference<>());
+            Slot previous = ref.get();
+            if (previous == Slot.REMOVED) {
+                slots.remove(staff.getStaffID(), ref); // a delete is finishing; start a fresh slot
+                continue;
+            }
+            Slot next = new Slot(staff.getDepartment(),
+                    previous == null ? canonical(staff.getAvailability()) : previous.availability);
+            if (next.equals(previous)) {
+                return;
+            }
+            if (ref.compareAndSet(previous, next)) {
+                changed(staff.getStaffID(), previous, next);
+                return;
+            }
+        }
+    }
+
+    // A row read from the database that the board has not seen (e.g. inserted by another instance)
+    public void loaded(MedicalStaffEntity staff) {
+        seed();
+        AtomicReference<Slot> ref = slots.computeIfAbsent(staff.getStaffID(), id -> new AtomicReference<>());
+        Slot next = new Slot(staff.getDepartment(), canonical(staff.getAvailability()));
+        if (ref.compareAndSet(null, next)) {
+            changed(staff.getStaffID(), null, next);
+        }
+    }
+
+    public void removed(int staffId) {
+        seed();
+        AtomicReference<Slot> ref = slots.get(staffId);
+        if (ref == null) {
+            return;
+        }
+        Slot previous = ref.getAndSet(Slot.REMOVED);
+        slots.remove(staffId, ref);
+        dirty.remove(staffId);
+        if (previous != Slot.REMOVED) {
+            changed(staffId, previous, null);
+        }
+    }
+
+    /**
+     * Writes every dirty row's current availability, one UPDATE per status. A row is
+     * taken off the dirty set before its state is read, so a toggle during the flush
+     * marks it again and the next flush writes the newer value.
+     */
+    @Scheduled(fixedDelayString = "${clinicaflow.staff.availability-flush-ms:2000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<String, List<Integer>> idsByAvailability = new HashMap<>(); // null key: unset
+        List<Integer> taken = new ArrayList<>();
+        for (Integer staffId : dirty) {
+            if (!dirty.remove(staffId)) {
+                continue;
+            }
+            Slot slot = slot(staffId);
+            if (slot != null) {
+                taken.add(staffId);
+                idsByAvailability.computeIfAbsent(slot.availability, a -> new ArrayList<>()).add(staffId);
+            }
+        }
+        if (taken.isEmpty()) {
+            return;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    idsByAvailability.forEach(this::write));
+            flushes.increment();
+            rowsFlushed.add(taken.size());
+        } catch (RuntimeException e) {
+            dirty.addAll(taken);
+            log.warn("Availability flush of {} staff rows failed; retrying on the next flush", taken.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void write(String availability, Collection<Integer> staffIds) {
+        repository.updateAvailability(staffIds, availability);
+    }
+
+    private Slot slot(int staffId) {
+        seed();
+        AtomicReference<Slot> ref = slots.get(staffId);
+        Slot slot = ref == null ? null : ref.get();
+        return slot == Slot.REMOVED ? null : slot;
+    }
+
+    // Counts, ETag version and listeners follow every change of state
+    private void changed(int staffId, Slot previous, Slot next) {
+        if (previous != null && previous != Slot.REMOVED) {
+            counts(previous.department).counts.decrementAndGet(statusIndex(previous.availability));
+        }
+        if (next != null) {
+            counts(next.department).counts.incrementAndGet(statusIndex(next.availability));
+        }
+        versionTracker.bump("staff_availability");
+        Slot now = next != null ? next : previous;
+        eventPublisher.publishEvent(new StaffAvailabilityChangedEvent(staffId, now.department,
+                next == null ? null : next.availability));
+    }
+
+    private DepartmentCounts counts(String department) {
+        return departments.computeIfAbsent(departmentKey(department), key -> new DepartmentCounts(department));
+    }
+
+    // Every staff member's row in one query; hooks that arrive meanwhile wait for it so none is lost.
+    // Hooks may run in afterCommit, where the finished transaction must not be joined: the read gets its own.
+    private void seed() {
+        if (seeded) {
+            return;
+        }
+        synchronized (seedLock) {
+            if (seeded) {
+                return;
+            }
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            List<Object[]> rows = readOnly.execute(status -> repository.findAvailability());
+            for (Object[] row : rows) {
+                int staffId = ((Number) row[0]).intValue();
+                Slot slot = new Slot((String) row[1], canonical((String) row[2]));
+                slots.put(staffId, new AtomicReference<>(slot));
+                counts(slot.department).counts.incrementAndGet(statusIndex(slot.availability));
+            }
+            seeded = true;
+        }
+    }
+
+    private static int statusIndex(String availability) {
+        int index = availability == null ? -1 : STATUSES.indexOf(availability);
+        return index < 0 ? UNSET : index;
+    }
+
+    private static String departmentKey(String department) {
+        return department == null ? "" : department.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // One staff member's state; replaced, never modified
+    private record Slot(String department, String availability) {
+        private static final Slot REMOVED = new Slot(null, null);
+    }
+
+    private static final class DepartmentCounts {
+        private final String name; // as first seen
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(STATUSES.size() + 1);
+
+        private DepartmentCounts(String name) {
+            this.name = name == null ? "" : name.trim();
+        }
+    }
+}
@@ -1,18 +1,41 @@
 package clinicaflow.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.time.format.DateTimeParseException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import clinicaflow.dto.response.ConsultationView;
 import clinicaflow.entity.ConsultationEntity;
 import clinicaflow.entity.MedicalStaffEntity;
 import clinicaflow.entity.PatientEntity;
 import clinicaflow.repository.ConsultationRepository;
-import clinicaflow.repository.MedicalStaffRepository;
 import clinicaflow.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 
 @Service
 public class ConsultationService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int DEFAULT_TIMELINE_SIZE = 20;
+
+    // "This week" as the history page has always counted it: the last 7 days, today included
+    private static final int WEEK_DAYS = 7;
+
     @Autowired
     private ConsultationRepository crepo;
 
@@ -20,7 +43,13 @@ public class ConsultationService {
     private PatientRepository prepo;
 
     @Autowired
-    private MedicalStaffRepository srepo;
+    private StaffDirectory staffDirectory;
+
+    @Autowired
+    private ConsultationTimelineCache timelineCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     // Update method signature to accept staffId
     public ConsultationEntity saveConsultation(int patientId, int staffId, ConsultationEntity consultation) {
@@ -30,7 +59,8 @@ public class ConsultationService {
             .orElseThrow(() -> new RuntimeException("Patient not found"));
 
         // 2. Fetch Doctor/Staff (THIS WAS MISSING)
-        MedicalStaffEntity staff = srepo.findById(staffId)
+        // Detached copy from the directory; only its id is written, as the staff_id foreign key
+        MedicalStaffEntity staff = staffDirectory.get(staffId)
             .orElseThrow(() -> new RuntimeException("Staff not found"));
 
         // 3. Set Relationships
@@ -38,12 +68,136 @@ public class ConsultationService {
         consultation.setMedicalStaff(staff); // or .setDoctor(staff) depending on your Entity naming
 
         // 4. Save
-        return crepo.save(consultation);
+        ConsultationEntity saved = crepo.save(consultation);
+        timelineCache.evict(patientId);
+        return saved;
     }
 
     //read
-    public List<ConsultationEntity> getAllConsultations() {
-        return crepo.findAll();
+    public List<ConsultationView> getAllConsultations() {
+        return crepo.findAllViews();
+    }
+
+    public Optional<ConsultationView> getConsultation(int id) {
+        return crepo.findViewById(id);
+    }
+
+    /**
+     * One page of consultations, newest first, starting after the given cursor (the
+     * last consultationID of the previous page). Optional filters: patient, staff
+     * member and an inclusive consultation date range; each has its own index.
+     * Returns {items, nextCursor}; nextCursor is null on the last page.
+     */
+    public Map<String, Object> getConsultationPage(Integer after, int limit, Integer patientId, Integer staffId,
+            LocalDate from, LocalDate to) {
+        int size = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ConsultationView> query = cb.createQuery(ConsultationView.class);
+        Root<ConsultationEntity> c = query.from(ConsultationEntity.class);
+        Join<ConsultationEntity, PatientEntity> p = c.join("patient");
+        Join<ConsultationEntity, MedicalStaffEntity> s = c.join("medicalStaff");
+
+        List<Predicate> where = new ArrayList<>();
+        if (after != null) {
+            where.add(cb.lessThan(c.get("consultationID"), after));
+        }
+        if (patientId != null) {
+            where.add(cb.equal(p.get("patientId"), patientId));
+        }
+        if (staffId != null) {
+            where.add(cb.equal(s.get("staffID"), staffId));
+        }
+        if (from != null) {
+            where.add(cb.greaterThanOrEqualTo(c.get("consultationDate"), from));
+        }
+        if (to != null) {
+            where.add(cb.lessThanOrEqualTo(c.get("consultationDate"), to));
+        }
+        // Same columns, in the same order, as ConsultationRepository.VIEW_SELECT
+        query.select(cb.construct(ConsultationView.class,
+                c.get("consultationID"), c.get("consultationDate"), c.get("symptoms"), c.get("diagnosis"),
+                c.get("medicinePrescribed"), c.get("remarks"),
+                p.get("patientId"), p.get("fname"), p.get("lname"), p.get("age"), p.get("gender"), p.get("contactNo"),
+                s.get("staffID"), s.get("name"), s.get("role"), s.get("department"), s.get("specialty")))
+            .where(where.toArray(new Predicate[0]))
+            .orderBy(cb.desc(c.get("consultationID")));
+
+        // One extra row tells whether another page exists, without a COUNT(*)
+        List<ConsultationView> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean more = rows.size() > size;
+        if (more) {
+            rows = rows.subList(0, size);
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", rows);
+        page.put("nextCursor", more ? rows.get(rows.size() - 1).getConsultationID() : null);
+        return page;
+    }
+
+    /**
+     * One patient's consultations, newest first (undated ones last), starting after
+     * the given cursor. Returns {items, nextCursor}; the cursor is the last row's
+     * "consultationDate_consultationID" ("_consultationID" if it has no date) and is
+     * null on the last page. First pages come from ConsultationTimelineCache when they can.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Map<String, Object> getPatientTimeline(int patientId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+        if (cursor == null || cursor.isEmpty()) {
+            Map<String, Object> cached = timelineCache.get(patientId, size);
+            if (cached != null) {
+                return cached;
+            }
+            ConsultationTimelineCache.Stamp stamp = timelineCache.stamp();
+            Map<String, Object> page = timelinePage(crepo.findTimeline(patientId, Limit.of(size + 1)), size);
+            timelineCache.put(patientId, size, page, stamp);
+            return page;
+        }
+
+        int separator = cursor.lastIndexOf('_');
+        LocalDate date;
+        int id;
+        try {
+            date = separator == 0 ? null : LocalDate.parse(cursor.substring(0, Math.max(0, separator)));
+            id = Integer.parseInt(cursor.substring(separator + 1));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        List<ConsultationView> rows = date == null
+                ? crepo.findUndatedTimelineAfter(patientId, id, Limit.of(size + 1))
+                : crepo.findTimelineAfter(patientId, date, id, Limit.of(size + 1));
+        return timelinePage(rows, size);
+    }
+
+    // One extra row tells whether another page exists, as on the other paged reads
+    private static Map<String, Object> timelinePage(List<ConsultationView> rows, int size) {
+        boolean more = rows.size() > size;
+        List<ConsultationView> items = List.copyOf(more ? rows.subList(0, size) : rows);
+        String nextCursor = null;
+        if (more) {
+            ConsultationView last = items.get(items.size() - 1);
+            nextCursor = (last.getConsultationDate() == null ? "" : last.getConsultationDate().toString())
+                    + "_" + last.getConsultationID();
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", nextCursor);
+        return Collections.unmodifiableMap(page);
+    }
+
+    // Figures for the history page's cards, computed by the database in one query
+    public Map<String, Object> getSummary() {
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.minusDays(WEEK_DAYS - 1);
+        Object[] row = crepo.summarize(today, today.plusDays(1), weekStart).get(0);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", ((Number) row[0]).longValue());
+        summary.put("today", ((Number) row[1]).longValue());
+        summary.put("thisWeek", ((Number) row[2]).longValue());
+        summary.put("uniquePatients", ((Number) row[3]).longValue());
+        summary.put("weekStart", weekStart);
+        return summary;
     }
 
     //update
@@ -60,13 +214,21 @@ public class ConsultationService {
         } catch (NoSuchElementException e){
             System.out.println("Consultation " + id + " does not exist");
         } finally {
-            return crepo.save(consultation);
+            ConsultationEntity saved = crepo.save(consultation);
+            if (saved.getPatient() != null) {
+                timelineCache.evict(saved.getPatient().getPatientId());
+            }
+            return saved;
         }
     }
 
     //delete
     public String deleteConsultation(int consultationId) {
-        crepo.deleteById(consultationId);
+        // Loaded first (as deleteById would) to learn whose timeline to evict; the patient stays an unloaded proxy
+        crepo.findById(consultationId).ifPresent(consultation -> {
+            crepo.delete(consultation);
+            timelineCache.evict(consultation.getPatient().getPatientId());
+        });
         return "Consultation removed! " + consultationId;
     }
 
@@ -0,0 +1,77 @@
+package clinicaflow.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Small LRU of the first page of recently opened patient timelines
+ * (GET /patients/{id}/consultations without a cursor), so reopening a patient
+ * does not go back to the database.
+ *
+ * ConsultationService evicts a patient's pages after every consultation save,
+ * update and delete. Pages also embed patient and staff names, so each entry
+ * remembers the patient and medical_staff table versions it was read at and is
+ * dropped once either moves. A page is only stored if none of the three tables was
+ * written while it was being read; otherwise a read that raced a write could put
+ * back what the write's eviction just removed. A size of 0 turns the cache off.
+ */
+@Service
+public class ConsultationTimelineCache {
+
+    @Autowired
+    private EntityVersionTracker versionTracker;
+
+    @Value("${clinicaflow.consultation.timeline-cache-size:256}")
+    private int maxEntries;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // Taken before reading a page, handed back to put()
+    public Stamp stamp() {
+        return new Stamp(versionTracker.version("consultation"), versionTracker.version("patient"),
+                versionTracker.version("medical_staff"));
+    }
+
+    public synchronized Map<String, Object> get(int patientId, int limit) {
+        Key key = new Key(patientId, limit);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.stamp.patients != versionTracker.version("patient")
+                || entry.stamp.staff != versionTracker.version("medical_staff")) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.page;
+    }
+
+    public synchronized void put(int patientId, int limit, Map<String, Object> page, Stamp stamp) {
+        if (maxEntries <= 0 || !stamp.equals(stamp())) {
+            return;
+        }
+        entries.put(new Key(patientId, limit), new Entry(page, stamp));
+    }
+
+    public synchronized void evict(int patientId) {
+        entries.keySet().removeIf(key -> key.patientId == patientId);
+    }
+
+    private record Key(int patientId, int limit) {
+    }
+
+    public record Stamp(long consultations, long patients, long staff) {
+    }
+
+    private record Entry(Map<String, Object> page, Stamp stamp) {
+    }
+}
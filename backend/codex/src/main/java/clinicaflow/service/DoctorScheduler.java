@@ -0,0 +1,336 @@
+package clinicaflow.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import clinicaflow.entity.MedicalStaffEntity;
+import clinicaflow.entity.Queue;
+import clinicaflow.event.QueueChangedEvent;
+import clinicaflow.event.StaffAvailabilityChangedEvent;
+import clinicaflow.event.StaffChangedEvent;
+
+/**
+ * Assigns each new queue entry to a doctor, inline on join.
+ *
+ * Doctors on shift (available or busy on the AvailabilityBoard) sit in one pool
+ * per department and one per department + specialty, each ordered by score and
+ * then staffID. The score is the doctor's load: patients waiting in their line,
+ * plus half a patient while they are busy with one. "least-loaded" uses the load
+ * as is; "shortest-wait" multiplies it by the doctor's expected consultation
+ * length from WaitTimePredictor. An assignment takes the first doctor of one pool
+ * and re-keys them, O(log doctors); queue, availability and staff changes re-key
+ * only the doctor involved. "off" leaves new entries in their department's line.
+ *
+ * A join reserves its doctor at once so concurrent joins spread out; after the
+ * transaction the reservation gives way to the committed entry, or is dropped.
+ * Waiting entries are counted by queue id, so seeing the same committed entry
+ * twice never counts it twice.
+ */
+@Service
+public class DoctorScheduler {
+
+    public static final String LEAST_LOADED = "least-loaded";
+    public static final String SHORTEST_WAIT = "shortest-wait";
+    public static final String OFF = "off";
+
+    private static final Comparator<Doctor> BY_SCORE = Comparator
+            .comparingDouble((Doctor d) -> d.score)
+            .thenComparingInt(d -> d.staffId);
+
+    @Autowired
+    private StaffDirectory staffDirectory;
+
+    @Autowired
+    private QueueEngine queueEngine;
+
+    @Autowired
+    private WaitTimePredictor waitTimePredictor;
+
+    @Value("${clinicaflow.queue.assignment-policy:least-loaded}")
+    private String policy;
+
+    // All guarded by this; every operation under the lock is O(log doctors)
+    private final Map<Integer, Doctor> doctors = new HashMap<>();
+    private final Map<String, TreeSet<Doctor>> pools = new HashMap<>();
+    private final Map<Long, Integer> doctorByEntry = new HashMap<>(); // WAITING entries with a doctor
+    private boolean loaded;
+
+    /**
+     * Gives a new, unsaved WAITING entry the best doctor for its department (and
+     * specialty, when one is asked for and someone on shift has it). Leaves the
+     * entry unassigned when nobody is on shift or the policy is off.
+     */
+    public synchronized void assign(Queue queue, String specialty) {
+        if (OFF.equalsIgnoreCase(policy)) {
+            return;
+        }
+        load();
+        TreeSet<Doctor> pool = specialty == null || specialty.isBlank()
+                ? null : pools.get(poolKey(queue.getDepartment(), specialty));
+        if (pool == null || pool.isEmpty()) {
+            pool = pools.get(poolKey(queue.getDepartment(), null));
+        }
+        if (pool == null || pool.isEmpty()) {
+            return;
+        }
+        Doctor doctor = pool.first();
+        queue.setAssignedDoctorId(doctor.staffId);
+        queue.setAssignedDoctor(doctor.name);
+        PendingAssignments pending = pendingAssignments();
+        if (pending != null) {
+            rekey(doctor, () -> doctor.reserved++);
+            pending.entries.add(queue);
+        }
+    }
+
+    // Current load per doctor on shift, least loaded first, for GET /api/queue/doctors
+    public synchronized List<Map<String, Object>> loads() {
+        load();
+        List<Doctor> onShift = new ArrayList<>();
+        doctors.values().stream().filter(Doctor::onShift).sorted(BY_SCORE).forEach(onShift::add);
+        List<Map<String, Object>> loads = new ArrayList<>();
+        for (Doctor doctor : onShift) {
+            Map<String, Object> load = new LinkedHashMap<>();
+            load.put("staffID", doctor.staffId);
+            load.put("name", doctor.name);
+            load.put("department", doctor.department);
+            load.put("specialty", doctor.specialty);
+            load.put("availability", doctor.availability);
+            load.put("waiting", doctor.waiting + doctor.reserved);
+            load.put("score", doctor.score);
+            loads.add(load);
+        }
+        return loads;
+    }
+
+    // After QueueEngine has applied the change
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onQueueChanged(QueueChangedEvent event) {
+        if (!loaded) {
+            return; // the first load reads the engine
+        }
+        if (event.getType() == QueueChangedEvent.Type.REMOVED) {
+            Integer before = doctorByEntry.remove(event.getQueueId());
+            if (before != null) {
+                adjustWaiting(before, -1);
+            }
+        } else {
+            track(event.getQueue());
+        }
+    }
+
+    @EventListener
+    public synchronized void onAvailabilityChanged(StaffAvailabilityChangedEvent event) {
+        Doctor doctor = loaded ? doctors.get(event.getStaffId()) : null;
+        if (doctor != null) {
+            rekey(doctor, () -> doctor.availability = event.getAvailability());
+        }
+    }
+
+    // New doctor, renamed, moved department or specialty, changed role, or deleted
+    @EventListener
+    public synchronized void onStaffChanged(StaffChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        Doctor previous = doctors.remove(event.getStaffId());
+        if (previous != null) {
+            leavePools(previous);
+        }
+        if (!event.isRemoved()) {
+            staffDirectory.get(event.getStaffId()).filter(DoctorScheduler::isDoctor).ifPresent(staff -> {
+                Doctor doctor = new Doctor(staff);
+                doctor.waiting = previous != null ? previous.waiting : countWaiting(doctor.staffId);
+                doctor.reserved = previous != null ? previous.reserved : 0;
+                doctors.put(doctor.staffId, doctor);
+                rekey(doctor, () -> { });
+            });
+        }
+    }
+
+    // Measured consultation lengths drift; shortest-wait scores follow them
+    @Scheduled(fixedDelayString = "${clinicaflow.queue.estimate-refresh-ms:60000}")
+    public synchronized void rescore() {
+        if (loaded && SHORTEST_WAIT.equalsIgnoreCase(policy)) {
+            new ArrayList<>(doctors.values()).forEach(doctor -> rekey(doctor, () -> { }));
+        }
+    }
+
+    // Caller holds the lock
+    private void track(Queue queue) {
+        Integer now = Queue.STATUS_WAITING.equalsIgnoreCase(queue.getStatus()) ? queue.getAssignedDoctorId() : null;
+        Integer before = now == null ? doctorByEntry.remove(queue.getId()) : doctorByEntry.put(queue.getId(), now);
+        if (now != null && now.equals(before)) {
+            return;
+        }
+        if (before != null) {
+            adjustWaiting(before, -1);
+        }
+        if (now != null) {
+            adjustWaiting(now, 1);
+        }
+    }
+
+    private void adjustWaiting(int staffId, int delta) {
+        Doctor doctor = doctors.get(staffId);
+        if (doctor != null) {
+            rekey(doctor, () -> doctor.waiting += delta);
+        }
+    }
+
+    // Takes the doctor out of its pools, applies the change, scores it and puts it back if on shift
+    private void rekey(Doctor doctor, Runnable change) {
+        leavePools(doctor);
+        change.run();
+        double load = doctor.waiting + doctor.reserved + (AvailabilityBoard.BUSY.equals(doctor.availability) ? 0.5 : 0);
+        doctor.score = SHORTEST_WAIT.equalsIgnoreCase(policy)
+                ? load * waitTimePredictor.consultMinutes(QueueEngine.doctorLane(doctor.staffId))
+                : load;
+        if (doctor.onShift()) {
+            pools.computeIfAbsent(poolKey(doctor.department, null), k -> new TreeSet<>(BY_SCORE)).add(doctor);
+            if (doctor.specialty != null) {
+                pools.computeIfAbsent(poolKey(doctor.department, doctor.specialty), k -> new TreeSet<>(BY_SCORE)).add(doctor);
+            }
+        }
+    }
+
+    // Must run before the score changes: the pools find the doctor by its current score
+    private void leavePools(Doctor doctor) {
+        TreeSet<Doctor> department = pools.get(poolKey(doctor.department, null));
+        if (department != null) {
+            department.remove(doctor);
+        }
+        if (doctor.specialty != null) {
+            TreeSet<Doctor> specialty = pools.get(poolKey(doctor.department, doctor.specialty));
+            if (specialty != null) {
+                specialty.remove(doctor);
+            }
+        }
+    }
+
+    private int countWaiting(int staffId) {
+        int count = 0;
+        for (Integer doctor : doctorByEntry.values()) {
+            if (doctor == staffId) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Every doctor from the directory and every assigned waiting entry from the engine; caller holds the lock
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        for (MedicalStaffEntity staff : staffDirectory.all()) {
+            if (isDoctor(staff)) {
+                doctors.put(staff.getStaffID(), new Doctor(staff));
+            }
+        }
+        for (Queue queue : queueEngine.snapshot()) {
+            if (Queue.STATUS_WAITING.equalsIgnoreCase(queue.getStatus()) && queue.getAssignedDoctorId() != null) {
+                doctorByEntry.put(queue.getId(), queue.getAssignedDoctorId());
+                Doctor doctor = doctors.get(queue.getAssignedDoctorId());
+                if (doctor != null) {
+                    doctor.waiting++;
+                }
+            }
+        }
+        doctors.values().forEach(doctor -> rekey(doctor, () -> { }));
+        loaded = true;
+    }
+
+    private static boolean isDoctor(MedicalStaffEntity staff) {
+        return staff.getRole() != null && staff.getRole().trim().equalsIgnoreCase("Doctor");
+    }
+
+    // Same default department as the queue's lanes
+    private static String poolKey(String department, String specialty) {
+        String key = (department == null || department.isBlank() ? Queue.DEFAULT_DEPARTMENT : department.trim())
+                .toLowerCase(Locale.ROOT);
+        return specialty == null ? key : key + "|" + specialty.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // This transaction's reservations, registered on first use
+    private PendingAssignments pendingAssignments() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingAssignments pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingAssignments pending = new PendingAssignments();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    // Entries assigned in one transaction; their reservations end when it does
+    private final class PendingAssignments implements TransactionSynchronization {
+        private final List<Queue> entries = new ArrayList<>();
+
+        private DoctorScheduler owner() {
+            return DoctorScheduler.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            synchronized (DoctorScheduler.this) {
+                for (Queue queue : entries) {
+                    Doctor doctor = doctors.get(queue.getAssignedDoctorId());
+                    if (doctor != null && doctor.reserved > 0) {
+                        rekey(doctor, () -> doctor.reserved--);
+                    }
+                    if (status == STATUS_COMMITTED) {
+                        track(queue);
+                    }
+                }
+            }
+        }
+    }
+
+    // A doctor as the scheduler sees them; score is only changed through rekey()
+    private static final class Doctor {
+        private final int staffId;
+        private final String name;
+        private final String department;
+        private final String specialty;
+        private String availability;
+        private int waiting;
+        private int reserved;
+        private double score;
+
+        private Doctor(MedicalStaffEntity staff) {
+            staffId = staff.getStaffID();
+            name = staff.getName();
+            department = staff.getDepartment();
+            specialty = staff.getSpecialty() == null || staff.getSpecialty().isBlank() ? null : staff.getSpecialty();
+            availability = AvailabilityBoard.canonical(staff.getAvailability());
+        }
+
+        private boolean onShift() {
+            return AvailabilityBoard.AVAILABLE.equals(availability) || AvailabilityBoard.BUSY.equals(availability);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package clinicaflow.service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory modification counter per table, used to build ETags for list endpoints.
+ *
+ * Writes inside a transaction bump the counter only after commit. A reader that sees
+ * the new version therefore also sees the new rows, and a reader that still gets the
+ * old version at worst labels newer data with an older tag, which only costs one
+ * extra 200 on the next poll. The epoch changes on every restart so tags issued by a
+ * previous process are never matched.
+ */
+@Service
+public class EntityVersionTracker {
+
+    private final String epoch = Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long version(String table) {
+        AtomicLong version = versions.get(table);
+        return version == null ? 0 : version.get();
+    }
+
+    public void bump(String table) {
+        versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    // Bumps now, or once the surrounding transaction commits
+    public void bumpAfterCommit(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(table);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingBumps pending && pending.owner() == this) {
+                pending.tables.add(table);
+                return;
+            }
+        }
+        PendingBumps pending = new PendingBumps();
+        pending.tables.add(table);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+
+    // Strong ETag covering every table the response is built from
+    public String etag(String... tables) {
+        StringBuilder tag = new StringBuilder("\"").append(epoch);
+        for (String table : tables) {
+            tag.append('-').append(version(table));
+        }
+        return tag.append('"').toString();
+    }
+
+    // One per transaction; collects the touched tables and bumps them after commit
+    private final class PendingBumps implements TransactionSynchronization {
+        private final Set<String> tables = new HashSet<>();
+
+        private EntityVersionTracker owner() {
+            return EntityVersionTracker.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                tables.forEach(EntityVersionTracker.this::bump);
+            }
+        }
+    }
+}
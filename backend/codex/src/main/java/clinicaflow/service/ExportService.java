@@ -0,0 +1,278 @@
+package clinicaflow.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Streams whole tables out as NDJSON or CSV for reporting, behind /api/export/*.
+ *
+ * Rows are read through a forward-only, read-only cursor (fetch size hint, which
+ * MySQL honours with useCursorFetch) and written to the response as they arrive,
+ * so memory use does not depend on the table size. Exports run on their own small
+ * connection pool: a slow client holding a cursor open never takes a connection
+ * from the queue's pool, and more concurrent exports than that pool has
+ * connections are turned away instead of queued.
+ */
+@Service
+public class ExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    public static final String PATIENTS = "patients";
+    public static final String CONSULTATIONS = "consultations";
+    public static final String QUEUE_HISTORY = "queue-history";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Output columns and the query for each dataset; queries select exactly these columns, in this order
+    private static final String[] PATIENT_COLUMNS = { "patientId", "firstName", "lastName", "age", "gender", "contactNo", "address" };
+    private static final String PATIENT_SQL = "SELECT patient_id, fname, lname, age, gender, contact_no, address FROM patient ORDER BY patient_id";
+
+    private static final String[] CONSULTATION_COLUMNS = { "consultationId", "consultationDate", "patientId", "patientName",
+            "staffId", "staffName", "symptoms", "diagnosis", "medicinePrescribed", "remarks" };
+    private static final String CONSULTATION_SQL = "SELECT c.consultationid, c.consultation_date, c.patient_id, "
+            + "CONCAT(p.fname, ' ', p.lname), c.staff_id, s.name, c.symptoms, c.diagnosis, c.medicine_prescribed, c.remarks "
+            + "FROM consultation c LEFT JOIN patient p ON p.patient_id = c.patient_id "
+            + "LEFT JOIN medical_staff s ON s.staffid = c.staff_id "
+            + "WHERE c.consultation_date >= ? AND c.consultation_date < ? ORDER BY c.consultationid";
+
+    // Archived visits first, then the rows still in the queue table; each part in time order on its own index
+    private static final String[] VISIT_COLUMNS = { "queueId", "queueNumber", "patientId", "patientName", "department",
+            "status", "assignedDoctorId", "assignedDoctor", "priority", "arrivedAt", "calledAt", "completedAt", "archived" };
+    private static final String ARCHIVED_VISIT_SQL = "SELECT queue_id, queue_number, patient_id, visitor_name, purpose, "
+            + "status, assigned_doctor_id, assigned_doctor, priority, visit_time, called_at, completed_at, TRUE FROM visit_history "
+            + "WHERE visit_time >= ? AND visit_time < ? ORDER BY visit_time";
+    private static final String LIVE_VISIT_SQL = "SELECT q.id, q.queue_number, q.patient_id, CONCAT(p.fname, ' ', p.lname), "
+            + "q.department, q.status, q.assigned_doctor_id, q.assigned_doctor, q.priority, q.arrived_at, q.called_at, q.completed_at, FALSE "
+            + "FROM queue q LEFT JOIN patient p ON p.patient_id = q.patient_id "
+            + "WHERE q.arrived_at >= ? AND q.arrived_at < ? ORDER BY q.arrived_at";
+
+    // Open-ended date filters
+    private static final LocalDate EARLIEST = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 1, 1);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Value("${spring.datasource.driver-class-name:}")
+    private String driverClassName;
+
+    @Value("${clinicaflow.export.pool-size:2}")
+    private int poolSize;
+
+    @Value("${clinicaflow.export.fetch-size:500}")
+    private int fetchSize;
+
+    private HikariDataSource exportDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Semaphore running;
+
+    @PostConstruct
+    public void init() {
+        exportDataSource = new HikariDataSource();
+        exportDataSource.setPoolName("export");
+        exportDataSource.setJdbcUrl(url);
+        exportDataSource.setUsername(username);
+        exportDataSource.setPassword(password);
+        if (!driverClassName.isBlank()) {
+            exportDataSource.setDriverClassName(driverClassName);
+        }
+        exportDataSource.setMaximumPoolSize(poolSize);
+        exportDataSource.setMinimumIdle(0); // connections only while an export runs
+        exportDataSource.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(exportDataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        running = new Semaphore(poolSize);
+    }
+
+    @PreDestroy
+    public void close() {
+        exportDataSource.close();
+    }
+
+    public static boolean isDataset(String dataset) {
+        return PATIENTS.equals(dataset) || CONSULTATIONS.equals(dataset) || QUEUE_HISTORY.equals(dataset);
+    }
+
+    /**
+     * Claims an export slot and returns the body that streams the dataset. The slot
+     * is released when the body finishes, or by {@link Export#abandon()} when the
+     * request ends before the body ever ran. from/to (inclusive, optional) filter
+     * consultations by date and queue history by arrival; patients are not filtered.
+     *
+     * @throws IllegalStateException if every export connection is in use
+     */
+    public Export export(String dataset, String format, boolean gzip, LocalDate from, LocalDate to) {
+        if (!running.tryAcquire()) {
+            throw new IllegalStateException("Too many exports running; try again shortly");
+        }
+        LocalDate start = from == null ? EARLIEST : from;
+        LocalDate end = to == null ? LATEST : to.plusDays(1);
+        return new Export(out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+            RowWriter writer = new RowWriter(target, format);
+            switch (dataset) {
+                case PATIENTS -> writer.write(PATIENT_COLUMNS, PATIENT_SQL);
+                case CONSULTATIONS -> writer.write(CONSULTATION_COLUMNS, CONSULTATION_SQL, start, end);
+                default -> {
+                    writer.write(VISIT_COLUMNS, ARCHIVED_VISIT_SQL, start.atStartOfDay(), end.atStartOfDay());
+                    writer.write(VISIT_COLUMNS, LIVE_VISIT_SQL, start.atStartOfDay(), end.atStartOfDay());
+                }
+            }
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish(); // gzip trailer; the container closes out itself
+            }
+            target.flush();
+        });
+    }
+
+    /**
+     * A streaming body holding one export slot, which goes back exactly once: when
+     * the body finishes, or on abandon() if it has not started by then. A body that
+     * runs after being abandoned (e.g. its async task was queued past a timeout)
+     * writes nothing.
+     */
+    public final class Export implements StreamingResponseBody {
+        private final StreamingResponseBody body;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Export(StreamingResponseBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (!started.compareAndSet(false, true)) {
+                return; // abandoned; the slot is already back
+            }
+            try {
+                body.writeTo(out);
+            } finally {
+                running.release();
+            }
+        }
+
+        // Client gone, timeout or error before the body ran; a running body releases the slot itself
+        public void abandon() {
+            if (started.compareAndSet(false, true)) {
+                running.release();
+            }
+        }
+    }
+
+    // Writes query results to the stream as they are read, the CSV header once
+    private final class RowWriter {
+        private final OutputStream out;
+        private final boolean csv;
+        private boolean headerWritten;
+
+        private RowWriter(OutputStream out, String format) {
+            this.out = out;
+            this.csv = CSV.equals(format);
+        }
+
+        private void write(String[] columns, String sql, Object... args) {
+            if (csv && !headerWritten) {
+                writeCsvLine(List.of(columns));
+                headerWritten = true;
+            }
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                for (int i = 0; i < args.length; i++) {
+                    statement.setObject(i + 1, args[i]);
+                }
+                return statement;
+            }, (ResultSet rs) -> writeRow(columns, rs));
+        }
+
+        private void writeRow(String[] columns, ResultSet rs) throws SQLException {
+            if (csv) {
+                List<Object> values = new ArrayList<>(columns.length);
+                for (int i = 0; i < columns.length; i++) {
+                    values.add(value(rs, i + 1));
+                }
+                writeCsvLine(values);
+            } else {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < columns.length; i++) {
+                    row.put(columns[i], value(rs, i + 1));
+                }
+                write(objectMapper.writeValueAsBytes(row));
+                write(new byte[] { '\n' });
+            }
+        }
+
+        private void writeCsvLine(List<?> values) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                Object value = values.get(i);
+                String text = value == null ? "" : value.toString();
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    text = '"' + text.replace("\"", "\"\"") + '"';
+                }
+                line.append(text);
+            }
+            write(line.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void write(byte[] bytes) {
+            try {
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // client went away; ends the query
+            }
+        }
+    }
+
+    // JDBC date types as java.time, so both formats print ISO dates
+    private static Object value(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,106 @@
+package clinicaflow.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Remembers the outcome of recent requests by their Idempotency-Key so a client
+ * retry gets the original result instead of repeating the write.
+ *
+ * Bounded in both time and size: keys expire after the TTL and the oldest key is
+ * dropped once the store is full. A retry that arrives while the first attempt
+ * is still running waits for it. Failed attempts are forgotten, so they can be
+ * retried with the same key.
+ */
+@Service
+public class IdempotencyStore {
+
+    @Value("${clinicaflow.idempotency.ttl-ms:600000}")
+    private long ttlMillis;
+
+    @Value("${clinicaflow.idempotency.max-keys:10000}")
+    private int maxKeys;
+
+    // Insertion order = expiry order, so expired keys are always at the head
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> action) throws Exception {
+        CompletableFuture<Object> result;
+        boolean owner = false;
+        synchronized (entries) {
+            long now = System.currentTimeMillis();
+            evict(now);
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(now + ttlMillis);
+                entries.put(key, entry);
+                owner = true;
+            }
+            result = entry.result;
+        }
+
+        if (owner) {
+            try {
+                result.complete(action.get());
+            } catch (Throwable e) {
+                // Errors too: a future left incomplete would block every retry of this key
+                forget(key, result);
+                result.completeExceptionally(e);
+            }
+        }
+        try {
+            return (T) result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private void forget(String key, CompletableFuture<Object> result) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.result == result) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    // Caller holds the entries lock
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.expiresAt > now && entries.size() < maxKeys) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    private static Exception unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return cause instanceof Exception e ? e : new RuntimeException(cause);
+    }
+
+    private static final class Entry {
+        private final long expiresAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,27 +1,53 @@
 package clinicaflow.service;
 
+import clinicaflow.dto.response.StaffListing;
 import clinicaflow.entity.MedicalStaffEntity;
 import clinicaflow.entity.UserAccountEntity;
 import clinicaflow.repository.MedicalStaffRepository;
 import clinicaflow.repository.UserAccountRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class MedicalStaffService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private MedicalStaffRepository repository;
 
     @Autowired
     private UserAccountRepository userAccountRepository;
 
+    @Autowired
+    private StaffDirectory directory;
+
+    @Autowired
+    private AvailabilityBoard availabilityBoard;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // CREATE 
     public MedicalStaffEntity addStaff(MedicalStaffEntity staff) {
         // Validate required fields
@@ -81,24 +107,27 @@ public class MedicalStaffService {
         return repository.save(staff);
     }
 
-    // READ ALL
+    // READ ALL (reads below come from StaffDirectory; the accounts in them carry no password hash)
     public List<MedicalStaffEntity> getAllStaff() {
-        return repository.findAll();
+        return directory.all();
     }
 
     // READ ONE
     public Optional<MedicalStaffEntity> getStaffById(int id) {
-        return repository.findById(id);
+        return directory.get(id);
     }
 
     // READ by Account ID
     public Optional<MedicalStaffEntity> getStaffByAccountId(int accountId) {
-        return repository.findByUserAccountAccountID(accountId);
+        return directory.getByAccountId(accountId);
     }
 
     // UPDATE
     public MedicalStaffEntity updateStaff(int id, MedicalStaffEntity updatedStaff) {
         return repository.findById(id).map(staff -> {
+            // The availability column belongs to the board's flush; a requested change is made on the board
+            String availabilityChange = null;
+
             // Update basic fields
             if (updatedStaff.getName() != null && !updatedStaff.getName().trim().isEmpty()) {
                 staff.setName(updatedStaff.getName().trim());
@@ -153,10 +182,8 @@ public class MedicalStaffService {
                         !availability.equalsIgnoreCase("offline")) {
                         throw new RuntimeException("Availability must be 'available', 'busy', or 'offline'");
                     }
-                    staff.setAvailability(availability.toLowerCase());
-                } else {
-                    staff.setAvailability(null); // Set to NULL if empty string
                 }
+                availabilityChange = availability; // empty clears it
             }
             
             // Update user account role if needed
@@ -182,28 +209,28 @@ public class MedicalStaffService {
                 staff.setUserAccount(account);
             }
 
-            return repository.save(staff);
+            MedicalStaffEntity saved = repository.save(staff);
+            if (availabilityChange != null) {
+                updateAvailability(id, availabilityChange);
+            }
+            return availabilityBoard.overlay(saved);
         }).orElseThrow(() -> new RuntimeException("Medical staff not found with ID: " + id));
     }
     
-    // NEW: Update availability only
-    @Transactional
+    // NEW: Update availability only. A toggle on the live board; the row is written by its next flush
     public MedicalStaffEntity updateAvailability(int staffId, String availability) {
-        MedicalStaffEntity staff = repository.findById(staffId)
-            .orElseThrow(() -> new RuntimeException("Medical staff not found with ID: " + staffId));
-        
-        // Validate availability
-        if (availability != null && !availability.trim().isEmpty()) {
-            String avail = availability.trim().toLowerCase();
-            if (!avail.equals("available") && !avail.equals("busy") && !avail.equals("offline")) {
-                throw new RuntimeException("Availability must be 'available', 'busy', or 'offline'");
-            }
-            staff.setAvailability(avail);
-        } else {
-            staff.setAvailability(null);
+        if (!AvailabilityBoard.isValid(availability)) {
+            throw new RuntimeException("Availability must be 'available', 'busy', or 'offline'");
         }
-        
-        return repository.save(staff);
+        if (!availabilityBoard.set(staffId, availability)) {
+            // A row the board has not seen yet: read it through and put it on the board first
+            MedicalStaffEntity staff = directory.get(staffId)
+                .orElseThrow(() -> new RuntimeException("Medical staff not found with ID: " + staffId));
+            availabilityBoard.loaded(staff);
+            availabilityBoard.set(staffId, availability);
+        }
+        return directory.get(staffId)
+            .orElseThrow(() -> new RuntimeException("Medical staff not found with ID: " + staffId));
     }
     
     // DELETE
@@ -226,31 +253,78 @@ public class MedicalStaffService {
         }
     }
     
-    // Additional helper methods
-    public List<MedicalStaffEntity> getStaffByRole(String role) {
-        return repository.findByRoleIgnoreCase(role);
-    }
-    
-    public List<MedicalStaffEntity> getStaffByGender(String gender) {
-        return repository.findByGenderIgnoreCase(gender);
+    /**
+     * One page of the staff directory in staffID order, starting after the given
+     * cursor, filtered by any combination of department, role, specialty,
+     * availability, gender and an inclusive age range. Everything is one SELECT
+     * (staff left-joined to the login account) that only touches the filters given;
+     * the medical_staff indexes cover the usual combinations. Text filters are exact
+     * matches, case-insensitive through the column collation so the indexes still apply.
+     * Returns {items, nextCursor}; nextCursor is null on the last page.
+     */
+    public Map<String, Object> searchStaff(Integer after, int limit, String department, String role, String specialty,
+            String availability, String gender, Integer minAge, Integer maxAge) {
+        int size = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StaffListing> query = cb.createQuery(StaffListing.class);
+        Root<MedicalStaffEntity> s = query.from(MedicalStaffEntity.class);
+        Join<MedicalStaffEntity, UserAccountEntity> a = s.join("userAccount", JoinType.LEFT);
+
+        List<Predicate> where = new ArrayList<>();
+        if (after != null) {
+            where.add(cb.greaterThan(s.get("staffID"), after));
+        }
+        addEquals(cb, where, s.get("department"), department);
+        addEquals(cb, where, s.get("role"), role);
+        addEquals(cb, where, s.get("specialty"), specialty);
+        // Stored lower case by AvailabilityBoard; the column may be one flush behind the live board
+        addEquals(cb, where, s.get("availability"), availability == null ? null : availability.toLowerCase(Locale.ROOT));
+        addEquals(cb, where, s.get("gender"), gender);
+        if (minAge != null) {
+            where.add(cb.greaterThanOrEqualTo(s.get("age"), minAge));
+        }
+        if (maxAge != null) {
+            where.add(cb.lessThanOrEqualTo(s.get("age"), maxAge));
+        }
+        query.select(cb.construct(StaffListing.class,
+                s.get("staffID"), s.get("name"), s.get("role"), s.get("department"), s.get("specialty"), s.get("gender"),
+                s.get("age"), s.get("contactNo"), s.get("availability"), a.get("accountID"), a.get("username")))
+            .where(where.toArray(new Predicate[0]))
+            .orderBy(cb.asc(s.get("staffID")));
+
+        // One extra row tells whether another page exists, without a COUNT(*)
+        List<StaffListing> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean more = rows.size() > size;
+        if (more) {
+            rows = rows.subList(0, size);
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", rows);
+        page.put("nextCursor", more ? rows.get(rows.size() - 1).getStaffID() : null);
+        return page;
     }
-    
-    public List<MedicalStaffEntity> getStaffByAgeRange(int minAge, int maxAge) {
-        return repository.findByAgeBetween(minAge, maxAge);
+
+    private static void addEquals(CriteriaBuilder cb, List<Predicate> where, Path<String> column, String value) {
+        if (value != null && !value.isBlank()) {
+            where.add(cb.equal(column, value.trim()));
+        }
     }
-    
-    // NEW: Get staff by department
-    public List<MedicalStaffEntity> getStaffByDepartment(String department) {
-        return repository.findByDepartmentIgnoreCase(department);
+
+    public List<MedicalStaffEntity> getStaffByAvailability(String availability) {
+        List<MedicalStaffEntity> staff = new ArrayList<>();
+        for (int staffId : availabilityBoard.staffWith(availability)) {
+            directory.get(staffId).ifPresent(staff::add);
+        }
+        return staff;
     }
-    
-    // NEW: Get staff by department and role
-    public List<MedicalStaffEntity> getStaffByDepartmentAndRole(String department, String role) {
-        return repository.findByDepartmentAndRole(department, role);
+
+    public Map<String, Map<String, Integer>> getAvailabilityCounts() {
+        return availabilityBoard.counts();
     }
-    
-    // NEW: Get staff by availability
-    public List<MedicalStaffEntity> getStaffByAvailability(String availability) {
-        return repository.findByAvailabilityIgnoreCase(availability);
+
+    public Map<String, Object> getDirectoryStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(directory.stats());
+        stats.put("availability", availabilityBoard.stats());
+        return stats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,260 @@
+package clinicaflow.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.dto.response.PatientImportReport;
+import clinicaflow.entity.PatientEntity;
+import clinicaflow.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk patient load for migrations, used by POST /patients/import and PatientImportRunner.
+ *
+ * The input is read one row at a time and written in chunks of commit-interval rows,
+ * one transaction per chunk. Inside a chunk, rows go out as JDBC batches of
+ * batch-size inserts and the persistence context is flushed and cleared after each
+ * batch, so memory stays flat however long the file is.
+ *
+ * After every committed chunk the report's checkpoint moves to the last row of that
+ * chunk; an interrupted import is continued by sending the same input again with
+ * resumeAfter = checkpoint. Patients already on file (same name, contact number and
+ * age, see PatientEntity.matchKey) are skipped, so replaying a few rows is harmless.
+ */
+@Service
+public class PatientImportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_AGE = 150;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${clinicaflow.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${clinicaflow.import.commit-interval:5000}")
+    private int commitInterval;
+
+    @Value("${clinicaflow.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    @Value("${clinicaflow.import.jobs-kept:20}")
+    private int jobsKept;
+
+    // Recent imports by job id, newest last
+    private final Map<String, PatientImportReport> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PatientImportReport> eldest) {
+                    return size() > jobsKept;
+                }
+            });
+
+    /**
+     * csv or ndjson from an explicit format, else guessed from a content type or
+     * file name ("text/csv", "application/x-ndjson", "patients.jsonl"); null if neither says.
+     */
+    public static String resolveFormat(String format, String hint) {
+        String value = format != null && !format.isBlank() ? format : hint;
+        if (value == null) {
+            return null;
+        }
+        value = value.toLowerCase(Locale.ROOT);
+        if (value.contains("csv")) {
+            return CSV;
+        }
+        if (value.contains("ndjson") || value.contains("jsonl") || value.contains("json-seq")) {
+            return NDJSON;
+        }
+        return null;
+    }
+
+    public Optional<PatientImportReport> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public List<PatientImportReport> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * Imports every row after resumeAfter and returns the final report (status
+     * COMPLETED, or FAILED with the checkpoint reached). onCheckpoint, if given, is
+     * called after each committed chunk.
+     */
+    public PatientImportReport importPatients(InputStream input, String format, long resumeAfter,
+            Consumer<PatientImportReport> onCheckpoint) {
+        PatientImportReport report = new PatientImportReport(UUID.randomUUID().toString(), format, resumeAfter);
+        jobs.put(report.getJobId(), report);
+
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        PatientRowReader rows = CSV.equals(format) ? PatientRowReader.csv(reader) : PatientRowReader.ndjson(reader, objectMapper);
+        List<PatientEntity> chunk = new ArrayList<>();
+        try {
+            PatientRowReader.Row row;
+            while ((row = rows.next()) != null) {
+                report.setRowsRead(row.number);
+                if (row.number <= resumeAfter) {
+                    continue;
+                }
+                try {
+                    if (row.error != null) {
+                        throw new IllegalArgumentException(row.error);
+                    }
+                    chunk.add(toPatient(row.fields));
+                } catch (IllegalArgumentException e) {
+                    reject(report, row.number, e.getMessage());
+                }
+                if (chunk.size() >= commitInterval) {
+                    commit(chunk, report, row.number, onCheckpoint);
+                }
+            }
+            commit(chunk, report, Math.max(resumeAfter, report.getRowsRead()), onCheckpoint);
+            report.setStatus(PatientImportReport.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            report.setStatus(PatientImportReport.FAILED);
+            report.setMessage("Stopped after row " + report.getCheckpoint() + ": " + e.getMessage());
+        }
+        report.setFinishedAt(LocalDateTime.now());
+        return report;
+    }
+
+    // Writes one chunk in its own transaction, then moves the checkpoint past it
+    private void commit(List<PatientEntity> chunk, PatientImportReport report, long lastRow,
+            Consumer<PatientImportReport> onCheckpoint) {
+        long[] counts = new long[2]; // imported, skipped
+        if (!chunk.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                Set<String> onFile = existingMatchKeys(chunk);
+                int pending = 0;
+                for (PatientEntity patient : chunk) {
+                    String key = PatientEntity.matchKey(patient.getFirstName(), patient.getLastName(),
+                            patient.getContactNo(), patient.getAge());
+                    if (key != null && !onFile.add(key)) {
+                        counts[1]++; // already on file, or earlier in this chunk
+                        continue;
+                    }
+                    entityManager.persist(patient);
+                    counts[0]++;
+                    if (++pending % batchSize == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            });
+        }
+        report.setImported(report.getImported() + counts[0]);
+        report.setSkipped(report.getSkipped() + counts[1]);
+        report.setCheckpoint(lastRow);
+        chunk.clear();
+        if (onCheckpoint != null) {
+            onCheckpoint.accept(report);
+        }
+    }
+
+    private Set<String> existingMatchKeys(List<PatientEntity> chunk) {
+        List<String> keys = new ArrayList<>();
+        for (PatientEntity patient : chunk) {
+            String key = PatientEntity.matchKey(patient.getFirstName(), patient.getLastName(),
+                    patient.getContactNo(), patient.getAge());
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            existing.addAll(patientRepository.findExistingMatchKeys(keys.subList(from, Math.min(keys.size(), from + batchSize))));
+        }
+        return existing;
+    }
+
+    private void reject(PatientImportReport report, long row, String error) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new PatientImportReport.RowError(row, error));
+        }
+    }
+
+    // Same fields as POST /patients/add; first and last name are required
+    private static PatientEntity toPatient(Map<String, String> fields) {
+        PatientEntity patient = new PatientEntity();
+        patient.setFirstName(required(fields, "firstName", "firstname", "fname"));
+        patient.setLastName(required(fields, "lastName", "lastname", "lname"));
+        patient.setGender(optional(fields, "gender", "sex"));
+        patient.setContactNo(optional(fields, "contactno", "contact", "phone"));
+        patient.setAddress(optional(fields, "address"));
+        String age = optional(fields, "age");
+        if (age != null) {
+            try {
+                patient.setAge(Integer.parseInt(age));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("age is not a whole number: " + age);
+            }
+            if (patient.getAge() < 0 || patient.getAge() > MAX_AGE) {
+                throw new IllegalArgumentException("age must be between 0 and " + MAX_AGE);
+            }
+        }
+        return patient;
+    }
+
+    private static String required(Map<String, String> fields, String label, String... names) {
+        String value = optional(fields, names);
+        if (value == null) {
+            throw new IllegalArgumentException(label + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, String> fields, String... names) {
+        for (String name : names) {
+            String value = fields.get(name);
+            if (value != null && !value.isBlank()) {
+                value = value.trim();
+                if (value.length() > MAX_TEXT_LENGTH) {
+                    throw new IllegalArgumentException(name + " is longer than " + MAX_TEXT_LENGTH + " characters");
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+}
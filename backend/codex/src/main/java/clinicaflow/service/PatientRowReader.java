@@ -0,0 +1,177 @@
+package clinicaflow.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Reads import rows one at a time from CSV (first line is the header) or NDJSON
+ * (one JSON object per line), so an import never holds more than the current row.
+ *
+ * Column names are matched loosely: case, spaces, '_' and '-' are ignored, so
+ * "First Name", "first_name" and "firstName" are the same column. A row that
+ * cannot be parsed comes back with an error instead of ending the import.
+ */
+abstract class PatientRowReader {
+
+    // One data row, numbered from 1 (CSV header and blank lines do not count)
+    static final class Row {
+        final long number;
+        final Map<String, String> fields;
+        final String error;
+
+        private Row(long number, Map<String, String> fields, String error) {
+            this.number = number;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+
+    protected final BufferedReader in;
+    protected long rowNumber;
+
+    private PatientRowReader(Reader reader) {
+        this.in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+    }
+
+    static PatientRowReader csv(Reader reader) {
+        return new Csv(reader);
+    }
+
+    static PatientRowReader ndjson(Reader reader, ObjectMapper objectMapper) {
+        return new Ndjson(reader, objectMapper);
+    }
+
+    // Next row, or null at the end of the input
+    abstract Row next() throws IOException;
+
+    static String column(String name) {
+        return name.replaceAll("[\\s_\\-]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Csv extends PatientRowReader {
+        private List<String> header;
+
+        private Csv(Reader reader) {
+            super(reader);
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (header == null) {
+                List<String> names = record();
+                if (names == null) {
+                    return null;
+                }
+                header = new ArrayList<>(names.size());
+                for (String name : names) {
+                    header.add(column(name.replace("\uFEFF", ""))); // Excel writes a byte order mark
+                }
+            }
+            List<String> values;
+            try {
+                values = record();
+            } catch (IllegalStateException e) {
+                return new Row(++rowNumber, null, e.getMessage());
+            }
+            if (values == null) {
+                return null;
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size() && i < header.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return new Row(++rowNumber, fields, values.size() > header.size() ? "More values than header columns" : null);
+        }
+
+        // One RFC 4180 record: quoted fields may contain commas, "" and line breaks; blank lines are skipped
+        private List<String> record() throws IOException {
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            value.append('"');
+                        } else {
+                            in.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        value.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else if (c == '\r') {
+                    // dropped; \n ends the record
+                } else if (c == '\n') {
+                    if (values.isEmpty() && value.length() == 0) {
+                        continue; // blank line
+                    }
+                    values.add(value.toString());
+                    return values;
+                } else {
+                    value.append((char) c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalStateException("Unterminated quoted value at end of input");
+            }
+            if (values.isEmpty() && value.length() == 0) {
+                return null;
+            }
+            values.add(value.toString());
+            return values;
+        }
+    }
+
+    private static final class Ndjson extends PatientRowReader {
+        private final ObjectMapper objectMapper;
+
+        private Ndjson(Reader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            long number = ++rowNumber;
+            Object parsed;
+            try {
+                parsed = objectMapper.readValue(line, Object.class);
+            } catch (RuntimeException e) {
+                return new Row(number, null, "Invalid JSON");
+            }
+            if (!(parsed instanceof Map<?, ?> object)) {
+                return new Row(number, null, "Expected a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            object.forEach((name, value) -> {
+                if (value != null) {
+                    fields.put(column(String.valueOf(name)), String.valueOf(value));
+                }
+            });
+            return new Row(number, fields, null);
+        }
+    }
+}
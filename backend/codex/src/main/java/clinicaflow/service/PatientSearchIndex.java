@@ -0,0 +1,448 @@
+package clinicaflow.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.entity.PatientEntity;
+import clinicaflow.repository.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * In-memory trigram index over patient first name, last name and contact number,
+ * backing GET /patients/search.
+ *
+ * Each name word and the contact digits are split into trigrams ("  an", " an",
+ * "ann", ...); a query collects candidates from the trigram postings of its words,
+ * then ranks the best few hundred by prefix match, edit distance (typos) and
+ * trigram overlap. Nothing here touches the database after the startup scan.
+ *
+ * Built at startup from a streamed read of the patient table and kept current by
+ * PatientSearchListener, which applies every committed insert, update and delete.
+ */
+@Service
+public class PatientSearchIndex {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private static final int MAX_CANDIDATES = 300;
+    private static final int COMMON_GRAM_FLOOR = 1000;
+    private static final double MIN_SCORE = 0.4;
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}");
+    private static final Pattern WORD_BREAK = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D");
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ConcurrentHashMap<Integer, Doc> docs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+
+    // Writers are serialized; searches never lock
+    private final Object writeLock = new Object();
+
+    @PostConstruct
+    public void rebuild() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<PatientEntity> patients = patientRepository.streamAllBy()) {
+                patients.forEach(patient -> {
+                    index(patient);
+                    entityManager.detach(patient); // keep the persistence context from growing with the table
+                });
+            }
+        });
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    public void index(PatientEntity patient) {
+        Doc doc = new Doc(patient);
+        synchronized (writeLock) {
+            Doc previous = docs.put(doc.patientId, doc);
+            if (previous != null) {
+                unpost(previous);
+            }
+            for (String gram : doc.grams) {
+                postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(doc.patientId);
+            }
+        }
+    }
+
+    // Applies the change once the surrounding transaction commits (now, if there is none)
+    public void indexAfterCommit(PatientEntity patient) {
+        PendingChanges pending = pendingChanges();
+        if (pending == null) {
+            index(patient);
+        } else {
+            pending.changes.put(patient.getPatientId(), patient);
+        }
+    }
+
+    public void removeAfterCommit(int patientId) {
+        PendingChanges pending = pendingChanges();
+        if (pending == null) {
+            remove(patientId);
+        } else {
+            pending.changes.put(patientId, null);
+        }
+    }
+
+    // This transaction's change set, registered on first use; a bulk write adds one synchronization, not one per row
+    private PendingChanges pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    public void remove(int patientId) {
+        synchronized (writeLock) {
+            Doc previous = docs.remove(patientId);
+            if (previous != null) {
+                unpost(previous);
+            }
+        }
+    }
+
+    /**
+     * Best matches for a free-text query (names and/or contact digits), best first.
+     * Every query word must match some name word by prefix, typo or trigram overlap,
+     * or be part of the contact number.
+     */
+    public List<Map<String, Object>> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        // 1. Candidates: patients sharing trigrams with the query, most shared first.
+        // Only selective trigrams add candidates; very common ones ("  s", "ana") just add
+        // hits to candidates already found, so a query never walks most of the table.
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (String gram : queryGrams(term)) {
+                Set<Integer> ids = postings.get(gram);
+                if (ids != null) {
+                    lists.add(ids);
+                }
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        int common = Math.max(COMMON_GRAM_FLOOR, docs.size() / 20);
+        Map<Integer, Integer> hits = new HashMap<>();
+        for (int i = 0; i < lists.size(); i++) {
+            Set<Integer> ids = lists.get(i);
+            if (i == 0 || ids.size() <= common) {
+                int added = 0;
+                for (Integer id : ids) {
+                    hits.merge(id, 1, Integer::sum);
+                    if (++added >= common) {
+                        break; // only reachable when every trigram is common, e.g. a one-letter query
+                    }
+                }
+            } else {
+                for (Map.Entry<Integer, Integer> hit : hits.entrySet()) {
+                    if (ids.contains(hit.getKey())) {
+                        hit.setValue(hit.getValue() + 1);
+                    }
+                }
+            }
+        }
+        List<Map.Entry<Integer, Integer>> candidates = new ArrayList<>(hits.entrySet());
+        if (candidates.size() > MAX_CANDIDATES) {
+            candidates.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+            candidates = candidates.subList(0, MAX_CANDIDATES);
+        }
+
+        // 2. Rank the candidates
+        List<Set<String>> termGrams = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            termGrams.add(grams(term, false));
+        }
+        List<Object[]> scored = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> candidate : candidates) {
+            Doc doc = docs.get(candidate.getKey());
+            if (doc == null) {
+                continue;
+            }
+            double score = score(terms, termGrams, doc);
+            if (score >= MIN_SCORE) {
+                scored.add(new Object[] { doc, score });
+            }
+        }
+        scored.sort((a, b) -> {
+            int byScore = Double.compare((double) b[1], (double) a[1]);
+            return byScore != 0 ? byScore : Integer.compare(((Doc) a[0]).patientId, ((Doc) b[0]).patientId);
+        });
+
+        int size = Math.max(1, Math.min(MAX_LIMIT, limit));
+        List<Map<String, Object>> results = new ArrayList<>(Math.min(size, scored.size()));
+        for (Object[] match : scored.subList(0, Math.min(size, scored.size()))) {
+            results.add(((Doc) match[0]).toResult((double) match[1]));
+        }
+        return results;
+    }
+
+    // Caller holds writeLock
+    private void unpost(Doc doc) {
+        for (String gram : doc.grams) {
+            Set<Integer> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(doc.patientId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram, ids);
+                }
+            }
+        }
+    }
+
+    // Average over query words of how well each matches the patient; 0 if any word does not match
+    private static double score(List<String> terms, List<Set<String>> termGrams, Doc doc) {
+        double total = 0;
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            double best = 0;
+            if (isDigits(term)) {
+                best = doc.contact != null && doc.contact.contains(term) ? 1.0 : 0;
+            } else {
+                for (String word : doc.words) {
+                    best = Math.max(best, wordScore(term, termGrams.get(t), word));
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total / terms.size();
+    }
+
+    private static double wordScore(String term, Set<String> termGrams, String word) {
+        if (word.equals(term)) {
+            return 1.0;
+        }
+        if (word.startsWith(term)) {
+            return 0.8 + 0.2 * term.length() / word.length();
+        }
+        int allowed = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+        if (allowed > 0) {
+            int distance = typoDistance(term, word, allowed);
+            if (distance <= allowed) {
+                return 0.75 - 0.15 * distance;
+            }
+        }
+        // A word can share at most min(a, b) grams; skip it when that cannot reach 0.5
+        int wordGrams = word.length() + 1;
+        if (4 * Math.min(termGrams.size(), wordGrams) < termGrams.size() + wordGrams) {
+            return 0;
+        }
+        double overlap = dice(termGrams, "  " + word + " ", wordGrams);
+        return overlap >= 0.5 ? 0.5 * overlap : 0;
+    }
+
+    // Edit distance between the term and the same-length start of the word (a typo'd prefix still matches)
+    private static int typoDistance(String term, String word, int allowed) {
+        int best = Integer.MAX_VALUE;
+        for (int length = term.length() - 1; length <= term.length() + 1; length++) {
+            if (length > 0 && length <= word.length()) {
+                best = Math.min(best, editDistance(term, word, length, allowed));
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Damerau-Levenshtein (optimal string alignment) between a and the first bLength
+     * characters of b: a swapped pair of letters counts as one typo. Keeps three rows
+     * and gives up with allowed + 1 once a whole row is over the limit.
+     */
+    private static int editDistance(String a, String b, int bLength, int allowed) {
+        int[] before = new int[bLength + 1];
+        int[] previous = new int[bLength + 1];
+        int[] current = new int[bLength + 1];
+        for (int j = 0; j <= bLength; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= bLength; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, before[j - 2] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > allowed) {
+                return allowed + 1;
+            }
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[bLength];
+    }
+
+    // Dice coefficient of the term's grams and the padded word's grams, without building the latter
+    private static double dice(Set<String> termGrams, String paddedWord, int wordGrams) {
+        if (termGrams.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String gram : termGrams) {
+            if (paddedWord.contains(gram)) {
+                common++;
+            }
+        }
+        return 2.0 * common / (termGrams.size() + wordGrams);
+    }
+
+    /*
+     * Name words are padded ("  ann ") so the leading grams act as a prefix match;
+     * a query word gets no trailing pad since the user may still be typing.
+     * Digits are matched anywhere, so they get no padding at all.
+     */
+    private static Set<String> queryGrams(String term) {
+        if (isDigits(term)) {
+            return term.length() >= 3 ? grams(term, false, false) : Set.of();
+        }
+        return grams(term, false);
+    }
+
+    private static Set<String> grams(String word, boolean closed) {
+        return grams(word, true, closed);
+    }
+
+    private static Set<String> grams(String word, boolean open, boolean closed) {
+        String padded = (open ? "  " : "") + word + (closed ? " " : "");
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+        for (String token : WORD_BREAK.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isDigits(String term) {
+        return !term.isEmpty() && term.chars().allMatch(Character::isDigit);
+    }
+
+    // Latest committed-to-be state per patient id; null means deleted
+    private final class PendingChanges implements TransactionSynchronization {
+        private final Map<Integer, PatientEntity> changes = new LinkedHashMap<>();
+
+        private PatientSearchIndex owner() {
+            return PatientSearchIndex.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            changes.forEach((patientId, patient) -> {
+                if (patient == null) {
+                    remove(patientId);
+                } else {
+                    index(patient);
+                }
+            });
+        }
+    }
+
+    // What the index keeps per patient: the searchable words and a small display copy
+    private static final class Doc {
+        private final int patientId;
+        private final String firstName;
+        private final String lastName;
+        private final String contactNo;
+        private final int age;
+        private final String gender;
+        private final List<String> words;
+        private final String contact;
+        private final Set<String> grams = new HashSet<>();
+
+        private Doc(PatientEntity patient) {
+            this.patientId = patient.getPatientId();
+            this.firstName = patient.getFirstName();
+            this.lastName = patient.getLastName();
+            this.contactNo = patient.getContactNo();
+            this.age = patient.getAge();
+            this.gender = patient.getGender();
+
+            List<String> nameWords = tokenize(firstName);
+            nameWords.addAll(tokenize(lastName));
+            this.words = nameWords;
+            String digits = contactNo == null ? "" : NON_DIGITS.matcher(contactNo).replaceAll("");
+            this.contact = digits.isEmpty() ? null : digits;
+
+            for (String word : words) {
+                grams.addAll(grams(word, true));
+            }
+            if (contact != null) {
+                grams.addAll(grams(contact, false, false));
+            }
+        }
+
+        private Map<String, Object> toResult(double score) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("patientId", patientId);
+            result.put("firstName", firstName);
+            result.put("lastName", lastName);
+            result.put("fullName", firstName + " " + lastName);
+            result.put("age", age);
+            result.put("gender", gender);
+            result.put("contactNo", contactNo);
+            result.put("score", Math.round(score * 1000) / 1000.0);
+            return result;
+        }
+    }
+}
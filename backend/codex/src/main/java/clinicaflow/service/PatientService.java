@@ -1,9 +1,15 @@
 package clinicaflow.service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import clinicaflow.entity.PatientEntity;
@@ -11,9 +17,29 @@ import clinicaflow.repository.PatientRepository;
 
 @Service
 public class PatientService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // Fields a client may ask for with ?fields=; patientId is always included
+    private static final Map<String, Function<PatientEntity, Object>> FIELDS = new LinkedHashMap<>();
+    static {
+        FIELDS.put("patientId", PatientEntity::getPatientId);
+        FIELDS.put("firstName", PatientEntity::getFirstName);
+        FIELDS.put("lastName", PatientEntity::getLastName);
+        FIELDS.put("fullName", PatientEntity::getFullName);
+        FIELDS.put("age", PatientEntity::getAge);
+        FIELDS.put("gender", PatientEntity::getGender);
+        FIELDS.put("contactNo", PatientEntity::getContactNo);
+        FIELDS.put("address", PatientEntity::getAddress);
+    }
+
     @Autowired
     private PatientRepository patientRepo;
 
+    @Autowired
+    private PatientSearchIndex searchIndex;
+
     //create
     public PatientEntity savePatient(PatientEntity patient) {
         return patientRepo.save(patient);
@@ -24,6 +50,76 @@ public class PatientService {
         return patientRepo.findAll();
     }
 
+    /**
+     * One page of patients in patientId order, starting after the given cursor
+     * (keyset pagination: WHERE patient_id > :after ... LIMIT, so every page costs
+     * the same however deep it is). Optional filters: name prefix on first or last
+     * name, gender, and an inclusive age range. With fields, each item only carries
+     * the listed properties.
+     * Returns {items, nextCursor}; nextCursor is null on the last page.
+     */
+    public Map<String, Object> getPatientPage(Integer after, int limit, String name, String gender,
+            Integer minAge, Integer maxAge, List<String> fields) {
+        int size = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+        Specification<PatientEntity> spec = (root, query, cb) -> cb.conjunction();
+        if (after != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("patientId"), after));
+        }
+        if (name != null && !name.isBlank()) {
+            String prefix = escapeLike(name.trim()) + "%";
+            spec = spec.and((root, query, cb) -> cb.or(
+                    cb.like(root.get("fname"), prefix, '\\'),
+                    cb.like(root.get("lname"), prefix, '\\')));
+        }
+        if (gender != null && !gender.isBlank()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("gender"), gender.trim()));
+        }
+        if (minAge != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), minAge));
+        }
+        if (maxAge != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), maxAge));
+        }
+
+        // Fetch one extra row to learn whether another page exists, without a COUNT(*)
+        List<PatientEntity> rows = patientRepo.findBy(spec, q -> q.sortBy(Sort.by("patientId")).limit(size + 1).all());
+        boolean more = rows.size() > size;
+        if (more) {
+            rows = rows.subList(0, size);
+        }
+
+        List<Object> items = new ArrayList<>(rows.size());
+        for (PatientEntity patient : rows) {
+            items.add(fields == null || fields.isEmpty() ? patient : sparse(patient, fields));
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", more ? rows.get(rows.size() - 1).getPatientId() : null);
+        return page;
+    }
+
+    // Answered from the in-memory index; the index follows every committed patient write
+    public List<Map<String, Object>> searchPatients(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public static boolean isKnownField(String field) {
+        return FIELDS.containsKey(field);
+    }
+
+    private static Map<String, Object> sparse(PatientEntity patient, List<String> fields) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("patientId", patient.getPatientId());
+        for (String field : fields) {
+            item.put(field, FIELDS.get(field).apply(patient));
+        }
+        return item;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     //update
     public PatientEntity putPatient(int id, PatientEntity newPatientDetails) { 
         PatientEntity patient = patientRepo.findById((int) id) .orElseThrow(() -> new NoSuchElementException("Patient " + id + " does not exist")); 
@@ -0,0 +1,112 @@
+package clinicaflow.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.event.QueueChangedEvent;
+import clinicaflow.repository.QueueRepository;
+import clinicaflow.repository.QueueTombstoneRepository;
+import clinicaflow.repository.VisitHistoryRepository;
+
+/**
+ * Keeps the queue table down to today's live line.
+ *
+ * Entries from earlier days, and visits completed more than a while ago, are
+ * copied into visit_history and deleted from queue in batches. Each batch is one
+ * transaction made of three set-based statements (INSERT ... SELECT into
+ * visit_history, INSERT ... SELECT tombstones, DELETE ... WHERE id IN), so
+ * a batch costs the same few round trips whatever its size. Patients are not
+ * touched: the bulk delete bypasses the queue -> patient cascade.
+ *
+ * Tombstones older than the retention are pruned on the same schedule; delta-sync
+ * cursors from before them get the full list instead (see QueueChangeSequence).
+ */
+@Service
+public class QueueArchiver {
+
+    private static final String QUEUE_TABLE = "queue";
+
+    @Autowired
+    private QueueRepository queueRepository;
+
+    @Autowired
+    private VisitHistoryRepository visitHistoryRepository;
+
+    @Autowired
+    private QueueTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private QueueChangeSequence changeSequence;
+
+    @Autowired
+    private EntityVersionTracker versionTracker;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${clinicaflow.queue.archive-batch-size:500}")
+    private int batchSize;
+
+    @Value("${clinicaflow.queue.tombstone-retention-hours:48}")
+    private long tombstoneRetentionHours;
+
+    @Value("${clinicaflow.queue.archive-completed-after-minutes:120}")
+    private long completedAfterMinutes;
+
+    // Runs every 15 minutes by default, so the midnight rollover happens shortly after midnight
+    @Scheduled(cron = "${clinicaflow.queue.archive-cron:0 */15 * * * *}")
+    public int archive() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dayStart = LocalDate.now().atStartOfDay();
+        LocalDateTime completedBefore = now.minusMinutes(completedAfterMinutes);
+
+        int archived = 0;
+        while (true) {
+            List<Long> ids = queueRepository.findArchivableIds(dayStart, completedBefore, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return archived;
+            }
+            transactionTemplate.executeWithoutResult(status -> archiveBatch(ids, now));
+            archived += ids.size();
+            if (ids.size() < batchSize) {
+                return archived;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${clinicaflow.queue.archive-cron:0 */15 * * * *}")
+    public int pruneTombstones() {
+        LocalDateTime before = LocalDateTime.now().minusHours(tombstoneRetentionHours);
+        Integer pruned = transactionTemplate.execute(status -> {
+            Long through = tombstoneRepository.findLastChangeSeqDeletedBefore(before);
+            if (through == null) {
+                return 0;
+            }
+            changeSequence.raiseTombstoneFloor(through);
+            return tombstoneRepository.deleteUpToChangeSeq(through);
+        });
+        return pruned == null ? 0 : pruned;
+    }
+
+    private void archiveBatch(List<Long> ids, LocalDateTime now) {
+        visitHistoryRepository.archiveQueueRows(ids, now);
+        tombstoneRepository.tombstoneQueueRows(ids, changeSequence.next(), now);
+        queueRepository.deleteAllByIdInBatch(ids);
+
+        // The bulk delete skips entity listeners, so report the change here
+        versionTracker.bumpAfterCommit(QUEUE_TABLE);
+        ids.forEach(id -> eventPublisher.publishEvent(QueueChangedEvent.removed(id)));
+    }
+}
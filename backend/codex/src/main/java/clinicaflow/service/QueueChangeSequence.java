@@ -0,0 +1,128 @@
+package clinicaflow.service;
+
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import clinicaflow.entity.QueueCounterEntity;
+import clinicaflow.repository.QueueCounterRepository;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Monotonic version number for the queue table.
+ *
+ * Versions come from an in-memory block; only a refill touches the counter row,
+ * in a short transaction of its own on QueueNumberAllocator's connection, so queue
+ * writes no longer wait on each other for a version. Versions can therefore commit
+ * out of order, and current() only reports a version once every smaller one has
+ * committed or rolled back. A client that has seen version N never misses a change
+ * with a smaller number that commits later. Two writes to the same row still get
+ * their versions in commit order, as each locks the row before asking for one.
+ *
+ * Tombstones are kept for a while (see QueueArchiver); once some are pruned, a
+ * cursor below the newest pruned version is stale and gets the full list instead.
+ */
+@Service
+public class QueueChangeSequence {
+
+    static final String COUNTER_NAME = "queue-change-seq";
+    // Highest version whose tombstones may have been pruned
+    static final String TOMBSTONE_FLOOR_NAME = "queue-tombstone-floor";
+
+    @Autowired
+    private QueueNumberAllocator counterBlocks;
+
+    @Autowired
+    private QueueCounterRepository counterRepository;
+
+    @Value("${clinicaflow.queue.change-seq-block-size:100}")
+    private int blockSize;
+
+    // Guarded by this: the unused rest of the block, the last version handed out,
+    // and the versions of transactions still running (first -> last)
+    private long next;
+    private long last;
+    private long handedOut;
+    private final TreeMap<Long, Long> inFlight = new TreeMap<>();
+
+    private volatile long settled;
+    private volatile long tombstoneFloor;
+
+    @PostConstruct
+    public void init() {
+        // Versions up to the persisted mark were committed or abandoned by an earlier process
+        handedOut = counterBlocks.highValue(COUNTER_NAME);
+        next = handedOut + 1;
+        last = handedOut;
+        settled = handedOut;
+        tombstoneFloor = counterRepository.findById(TOMBSTONE_FLOOR_NAME)
+                .map(QueueCounterEntity::getHighValue)
+                .orElse(0L);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next() {
+        return advance(1);
+    }
+
+    // Reserves count versions at once and returns the first one; they settle when the caller's transaction ends
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long advance(int count) {
+        long first;
+        synchronized (this) {
+            if (next + count - 1 > last) {
+                int size = Math.max(blockSize, count);
+                next = counterBlocks.reserve(COUNTER_NAME, size);
+                last = next + size - 1;
+            }
+            first = next;
+            next += count;
+            handedOut = first + count - 1;
+            inFlight.put(first, handedOut);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                settle(first);
+            }
+        });
+        return first;
+    }
+
+    // Latest version below which everything has committed; read it before the rows so no change can slip in between
+    public long current() {
+        return settled;
+    }
+
+    // Cursors below this may have missed pruned deletions
+    public long tombstoneFloor() {
+        return tombstoneFloor;
+    }
+
+    // Called by the tombstone sweep, inside its transaction, before the tombstones go
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void raiseTombstoneFloor(long changeSeq) {
+        if (changeSeq <= tombstoneFloor) {
+            return;
+        }
+        // Raised now rather than after commit: a rolled-back sweep only costs some clients a full sync
+        tombstoneFloor = changeSeq;
+        QueueCounterEntity floor = counterRepository.findById(TOMBSTONE_FLOOR_NAME)
+                .orElseGet(() -> new QueueCounterEntity(TOMBSTONE_FLOOR_NAME, 0));
+        floor.setHighValue(Math.max(floor.getHighValue(), changeSeq));
+        floor.setUpdatedAt(LocalDateTime.now());
+        counterRepository.save(floor);
+    }
+
+    private synchronized void settle(long first) {
+        inFlight.remove(first);
+        settled = inFlight.isEmpty() ? handedOut : inFlight.firstKey() - 1;
+    }
+}
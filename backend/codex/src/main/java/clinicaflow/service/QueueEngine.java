@@ -0,0 +1,308 @@
+package clinicaflow.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import clinicaflow.entity.Queue;
+import clinicaflow.event.QueueChangedEvent;
+import clinicaflow.repository.QueueRepository;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-process copy of the live waiting line.
+ *
+ * Every queue entry is kept by id; WAITING entries are also kept in a lane, a
+ * sorted set ordered by triage priority and then arrival. A lane is either a
+ * doctor's personal line (entries with an assigned doctor, keyed by staffID) or a
+ * department's shared line (unassigned entries). Enqueue, call-next and status changes are
+ * O(log n); dashboard reads never touch the database.
+ *
+ * The database stays the source of truth: QueueService writes in its own
+ * transaction and the engine applies the committed result, so the change
+ * sequence and ETags never run ahead of what the engine serves. Commits on the
+ * same entry can deliver their events in either order, so an entry is only
+ * replaced by one with a newer change sequence, and a removed id never comes back.
+ */
+@Service
+@DependsOn("schemaUpgrader") // rebuild() reads arrived_at, which older rows only have once it is backfilled
+public class QueueEngine {
+
+    private static final int REMOVED_IDS_KEPT = 10000;
+
+    @Autowired
+    private QueueRepository queueRepository;
+
+    @Autowired
+    private QueueStatistics statistics;
+
+    private final ConcurrentSkipListMap<Long, Queue> entries = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<WaitingKey>> lanes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, WaitingKey> waitingKeys = new ConcurrentHashMap<>();
+
+    // Recently removed ids (ids are never reused), so a late event cannot bring one back; guarded by writeLock
+    private final Set<Long> removedIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > REMOVED_IDS_KEPT;
+        }
+    });
+
+    // Writers are rare (joins and transitions); readers never take this lock
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Only today's entries are live; earlier days stay in the database for history
+    @PostConstruct
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        List<Queue> rows = queueRepository.findByArrivedAtGreaterThanEqualAndArrivedAtLessThanOrderByArrivedAtAsc(
+                today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        writeLock.lock();
+        try {
+            entries.clear();
+            lanes.clear();
+            waitingKeys.clear();
+            removedIds.clear();
+            statistics.reset();
+            rows.forEach(this::put);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Runs before the SSE broadcast so a new subscriber's snapshot already contains the change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQueueChanged(QueueChangedEvent event) {
+        if (event.getType() == QueueChangedEvent.Type.REMOVED) {
+            remove(event.getQueueId());
+        } else {
+            upsert(event.getQueue());
+        }
+    }
+
+    public void upsert(Queue queue) {
+        writeLock.lock();
+        try {
+            put(queue);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        writeLock.lock();
+        try {
+            removedIds.add(id);
+            Queue previous = entries.remove(id);
+            unlink(id);
+            if (previous != null) {
+                statistics.onTransition(previous, null);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // All entries in id (= arrival) order
+    public List<Queue> snapshot() {
+        return new ArrayList<>(entries.values());
+    }
+
+    public Optional<Queue> get(Long id) {
+        return Optional.ofNullable(entries.get(id));
+    }
+
+    // WAITING entries of one lane, most urgent first
+    public List<Queue> waitingLine(String lane) {
+        List<Queue> line = new ArrayList<>();
+        ConcurrentSkipListSet<WaitingKey> keys = lanes.get(lane);
+        if (keys != null) {
+            for (WaitingKey key : keys) {
+                Queue queue = entries.get(key.id);
+                if (queue != null) {
+                    line.add(queue);
+                }
+            }
+        }
+        return line;
+    }
+
+    public Collection<String> laneNames() {
+        return lanes.keySet();
+    }
+
+    // Next entry across the given lanes, without claiming it
+    public Optional<Queue> peekNext(Collection<String> laneNames) {
+        WaitingKey best = head(laneNames);
+        return best == null ? Optional.empty() : Optional.ofNullable(entries.get(best.id));
+    }
+
+    /**
+     * Removes the most urgent WAITING entry across the given lanes from its lane and
+     * returns it. The caller owns the entry until its committed update arrives; if
+     * the update fails it must hand the entry back with {@link #release(Long)}.
+     */
+    public Optional<Queue> claimNext(Collection<String> laneNames) {
+        writeLock.lock();
+        try {
+            WaitingKey best = head(laneNames);
+            if (best == null) {
+                return Optional.empty();
+            }
+            unlink(best.id);
+            return Optional.ofNullable(entries.get(best.id));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Puts a claimed entry back into its lane
+    public void release(Long id) {
+        writeLock.lock();
+        try {
+            Queue queue = entries.get(id);
+            if (queue != null) {
+                put(queue);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public static final String DOCTOR_LANE_PREFIX = "doctor:";
+
+    public static String doctorLane(int staffId) {
+        return DOCTOR_LANE_PREFIX + staffId;
+    }
+
+    public static String departmentLane(String department) {
+        return "department:" + (department == null || department.isBlank() ? Queue.DEFAULT_DEPARTMENT : department);
+    }
+
+    public static String laneOf(Queue queue) {
+        if (queue.getAssignedDoctorId() != null) {
+            return doctorLane(queue.getAssignedDoctorId());
+        }
+        return departmentLane(queue.getDepartment());
+    }
+
+    private WaitingKey head(Collection<String> laneNames) {
+        WaitingKey best = null;
+        for (String laneName : laneNames) {
+            ConcurrentSkipListSet<WaitingKey> lane = lanes.get(laneName);
+            WaitingKey first = lane == null ? null : firstOrNull(lane);
+            if (first != null && (best == null || first.compareTo(best) < 0)) {
+                best = first;
+            }
+        }
+        return best;
+    }
+
+    // Readers do not lock, so a lane can empty out between isEmpty() and first()
+    private static WaitingKey firstOrNull(ConcurrentSkipListSet<WaitingKey> lane) {
+        try {
+            return lane.first();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    // Caller holds writeLock
+    private void put(Queue queue) {
+        if (removedIds.contains(queue.getId()) || isOlder(queue, entries.get(queue.getId()))) {
+            return; // a newer commit has already been applied
+        }
+        Queue previous = entries.put(queue.getId(), queue);
+        statistics.onTransition(previous, queue);
+        unlink(queue.getId());
+        if (Queue.STATUS_WAITING.equalsIgnoreCase(queue.getStatus())) {
+            WaitingKey key = new WaitingKey(laneOf(queue), priorityOf(queue), arrivalOf(queue), queue.getId());
+            lanes.computeIfAbsent(key.lane, l -> new ConcurrentSkipListSet<>()).add(key);
+            waitingKeys.put(queue.getId(), key);
+        }
+    }
+
+    // Caller holds writeLock
+    private void unlink(Long id) {
+        WaitingKey key = waitingKeys.remove(id);
+        if (key != null) {
+            ConcurrentSkipListSet<WaitingKey> lane = lanes.get(key.lane);
+            if (lane != null) {
+                lane.remove(key);
+            }
+        }
+    }
+
+    private static boolean isOlder(Queue queue, Queue current) {
+        return current != null && queue.getChangeSeq() != null && current.getChangeSeq() != null
+                && queue.getChangeSeq() < current.getChangeSeq();
+    }
+
+    private static int priorityOf(Queue queue) {
+        return queue.getPriority() == null ? Queue.DEFAULT_PRIORITY : queue.getPriority();
+    }
+
+    // Ids are assigned in arrival order, so they stand in when arrivedAt is missing
+    private static long arrivalOf(Queue queue) {
+        if (queue.getArrivedAt() == null) {
+            return queue.getId();
+        }
+        return queue.getArrivedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class WaitingKey implements Comparable<WaitingKey> {
+        private static final Comparator<WaitingKey> ORDER = Comparator
+                .comparingInt((WaitingKey k) -> k.priority)
+                .thenComparingLong(k -> k.arrival)
+                .thenComparingLong(k -> k.id);
+
+        private final String lane;
+        private final int priority;
+        private final long arrival;
+        private final long id;
+
+        private WaitingKey(String lane, int priority, long arrival, long id) {
+            this.lane = lane;
+            this.priority = priority;
+            this.arrival = arrival;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(WaitingKey other) {
+            return ORDER.compare(this, other);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof WaitingKey other && compareTo(other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
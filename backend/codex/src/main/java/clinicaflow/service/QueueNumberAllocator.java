@@ -0,0 +1,182 @@
+package clinicaflow.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hands out "Q-NNN" queue numbers from a per-day, per-clinic counter.
+ *
+ * Numbers come from an in-memory block; only when a block runs out is the
+ * queue_counter row locked and moved forward by another block. The counter
+ * name includes the date, so numbering starts again at Q-001 every day.
+ * After a restart the allocator continues after the persisted high-water
+ * mark; numbers left over in an unfinished block are skipped, never reused.
+ *
+ * Blocks are reserved over a one-connection pool of the allocator's own. A join
+ * asks for its number while already holding a connection from the main pool, so
+ * taking a second one from there could deadlock once every connection belongs to
+ * a join waiting for a refill. QueueChangeSequence reserves its version blocks
+ * through here too, for the same reason.
+ */
+@Service
+public class QueueNumberAllocator {
+
+    private static final String HIGH_VALUE_SQL = "SELECT high_value FROM queue_counter WHERE counter_name = ?";
+    private static final String LOCK_SQL = "SELECT high_value FROM queue_counter WHERE counter_name = ? FOR UPDATE";
+    private static final String INSERT_SQL = "INSERT INTO queue_counter (counter_name, high_value, updated_at) VALUES (?, 0, ?)";
+    private static final String ADVANCE_SQL = "UPDATE queue_counter SET high_value = ?, updated_at = ? WHERE counter_name = ?";
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Value("${spring.datasource.driver-class-name:}")
+    private String driverClassName;
+
+    @Value("${clinicaflow.queue.clinic-code:MAIN}")
+    private String clinicCode;
+
+    @Value("${clinicaflow.queue.number-block-size:20}")
+    private int blockSize;
+
+    private HikariDataSource counterDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate counterTransaction;
+
+    private volatile Block current;
+
+    // Injected so ddl-auto has created queue_counter before the first reservation
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void init() {
+        counterDataSource = new HikariDataSource();
+        counterDataSource.setPoolName("queue-counter");
+        counterDataSource.setJdbcUrl(url);
+        counterDataSource.setUsername(username);
+        counterDataSource.setPassword(password);
+        if (!driverClassName.isBlank()) {
+            counterDataSource.setDriverClassName(driverClassName);
+        }
+        counterDataSource.setMaximumPoolSize(1); // reservations take the row lock one at a time anyway
+        counterDataSource.setMinimumIdle(1);
+        jdbcTemplate = new JdbcTemplate(counterDataSource);
+        counterTransaction = new TransactionTemplate(new DataSourceTransactionManager(counterDataSource));
+    }
+
+    @PreDestroy
+    public void close() {
+        counterDataSource.close();
+    }
+
+    public String nextQueueNumber() {
+        return format(nextValue());
+    }
+
+    // Allocates a contiguous run of numbers with at most one counter round trip
+    public List<String> nextQueueNumbers(int count) {
+        List<String> numbers = new ArrayList<>(count);
+        if (count <= 0) {
+            return numbers;
+        }
+        long start = reserve(counterName(LocalDate.now()), count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(format(start + i));
+        }
+        return numbers;
+    }
+
+    private long nextValue() {
+        while (true) {
+            LocalDate today = LocalDate.now();
+            Block block = current;
+            if (block != null && block.day.equals(today)) {
+                long value = block.next.getAndIncrement();
+                if (value <= block.last) {
+                    return value;
+                }
+            }
+            refill(today, block);
+        }
+    }
+
+    private synchronized void refill(LocalDate today, Block exhausted) {
+        if (current != exhausted) {
+            return; // another thread already installed a fresh block
+        }
+        long start = reserve(counterName(today), blockSize);
+        current = new Block(today, start, start + blockSize - 1);
+    }
+
+    // Moves the persisted high-water mark forward and returns the first reserved value
+    long reserve(String counterName, int count) {
+        try {
+            return counterTransaction.execute(status -> advance(counterName, count));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created today's row first; it exists now, so lock it and retry
+            return counterTransaction.execute(status -> advance(counterName, count));
+        }
+    }
+
+    // Last value reserved under the counter, 0 if it has none yet
+    long highValue(String counterName) {
+        List<Long> high = jdbcTemplate.queryForList(HIGH_VALUE_SQL, Long.class, counterName);
+        return high.isEmpty() ? 0 : high.get(0);
+    }
+
+    private long advance(String counterName, int count) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> locked = jdbcTemplate.queryForList(LOCK_SQL, Long.class, counterName);
+        long high = 0;
+        if (locked.isEmpty()) {
+            jdbcTemplate.update(INSERT_SQL, counterName, now); // holds the new row's lock until commit
+        } else {
+            high = locked.get(0);
+        }
+        jdbcTemplate.update(ADVANCE_SQL, high + count, now, counterName);
+        return high + 1;
+    }
+
+    private String counterName(LocalDate day) {
+        return clinicCode + ":" + day;
+    }
+
+    private static String format(long value) {
+        return String.format("Q-%03d", value);
+    }
+
+    private static final class Block {
+        private final LocalDate day;
+        private final AtomicLong next;
+        private final long last;
+
+        private Block(LocalDate day, long first, long last) {
+            this.day = day;
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -1,85 +1,349 @@
 package clinicaflow.service;
 
-import java.time.LocalTime;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import clinicaflow.dto.request.PatientQueueRequest;
+import clinicaflow.dto.response.QueueJoinResult;
+import clinicaflow.entity.MedicalStaffEntity;
 import clinicaflow.entity.PatientEntity;
 import clinicaflow.entity.Queue;
+import clinicaflow.entity.QueueTombstone;
+import clinicaflow.entity.VisitHistory;
+import clinicaflow.event.QueueChangedEvent;
 import clinicaflow.repository.PatientRepository;
 import clinicaflow.repository.QueueRepository;
+import clinicaflow.repository.QueueTombstoneRepository;
+import clinicaflow.repository.VisitHistoryRepository;
 
 @Service
 public class QueueService {
 
+    private static final DateTimeFormatter ARRIVAL_FORMAT = DateTimeFormatter.ofPattern("hh:mm a");
+    private static final List<String> ACTIVE_STATUSES = List.of(Queue.STATUS_WAITING, Queue.STATUS_CONSULTING);
+
     @Autowired
     private QueueRepository queueRepository;
 
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private StaffDirectory staffDirectory;
+
+    @Autowired
+    private AvailabilityBoard availabilityBoard;
+
+    @Autowired
+    private DoctorScheduler doctorScheduler;
+
+    @Autowired
+    private QueueNumberAllocator queueNumberAllocator;
+
+    @Autowired
+    private QueueTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private VisitHistoryRepository visitHistoryRepository;
+
+    @Autowired
+    private QueueChangeSequence changeSequence;
+
+    @Autowired
+    private QueueEngine queueEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Puts a patient on the line. A returning patient (same name, contact number
+     * and age) keeps their existing patient record, and a patient who is already
+     * waiting or in consultation gets their current entry back instead of a second one.
+     * A new entry is assigned a doctor by DoctorScheduler.
+     */
     @Transactional // Ensures both patient and queue are saved, or neither is
     public Queue joinQueue(PatientQueueRequest request) {
         
-        // 1. Create and Save Patient
-        PatientEntity patient = new PatientEntity();
-        patient.setFirstName(request.getFirstName());
-        patient.setLastName(request.getLastName());
-        patient.setAge(request.getAge());
-        patient.setGender(request.getGender());
-        patient.setContactNo(request.getContactNo());
-        patient.setAddress(request.getAddress());
+        // 1. Find or Create the Patient
+        PatientEntity patient = findReturningPatient(request);
+        if (patient != null) {
+            Optional<Queue> active = queueRepository.findFirstByPatientPatientIdAndStatusInOrderByIdDesc(
+                    patient.getPatientId(), ACTIVE_STATUSES);
+            if (active.isPresent()) {
+                return active.get();
+            }
+        } else {
+            patient = new PatientEntity();
+            patient.setFirstName(request.getFirstName());
+            patient.setLastName(request.getLastName());
+            patient.setAge(request.getAge());
+            patient.setContactNo(request.getContactNo());
+        }
+        if (request.getGender() != null) {
+            patient.setGender(request.getGender());
+        }
+        if (request.getAddress() != null) {
+            patient.setAddress(request.getAddress());
+        }
         
         // Save patient first
         patient = patientRepository.save(patient);
 
         // 2. Generate Queue Number
-        String nextQueueNumber = generateNextQueueNumber();
+        String nextQueueNumber = queueNumberAllocator.nextQueueNumber();
 
         // 3. Create Queue Entry
+        Queue queue = newEntry(patient, nextQueueNumber, request, LocalDateTime.now());
+        queue.setChangeSeq(changeSequence.next());
+        doctorScheduler.assign(queue, request.getSpecialty());
+
+        // 4. Save, notify listeners and Return
+        Queue saved = queueRepository.save(queue);
+        eventPublisher.publishEvent(QueueChangedEvent.joined(saved));
+        return saved;
+    }
+
+    /**
+     * Registers many walk-ins in one transaction and returns one result per item, in
+     * request order. Returning patients are matched with one query, their open entries
+     * with another; queue numbers and change sequences are reserved as one block each,
+     * and new patients and entries are inserted in JDBC batches.
+     * Items without a first and last name fail on their own without affecting the rest.
+     */
+    @Transactional
+    public List<QueueJoinResult> joinQueueBatch(List<PatientQueueRequest> requests) {
+        QueueJoinResult[] results = new QueueJoinResult[requests.size()];
+        String[] matchKeys = new String[requests.size()];
+
+        // 1. Validate and look up returning patients and their open entries
+        Set<String> lookupKeys = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PatientQueueRequest request = requests.get(i);
+            if (request == null || isBlank(request.getFirstName()) || isBlank(request.getLastName())) {
+                results[i] = QueueJoinResult.failed(i, "firstName and lastName are required");
+                continue;
+            }
+            matchKeys[i] = PatientEntity.matchKey(request.getFirstName(), request.getLastName(),
+                    request.getContactNo(), request.getAge());
+            if (matchKeys[i] != null) {
+                lookupKeys.add(matchKeys[i]);
+            }
+        }
+        Map<String, PatientEntity> patientsByKey = new HashMap<>();
+        if (!lookupKeys.isEmpty()) {
+            for (PatientEntity patient : patientRepository.findByMatchKeyIn(lookupKeys)) {
+                patientsByKey.merge(patient.getMatchKey(), patient,
+                        (a, b) -> a.getPatientId() <= b.getPatientId() ? a : b);
+            }
+        }
+        Map<Integer, Queue> openByPatient = new HashMap<>();
+        if (!patientsByKey.isEmpty()) {
+            List<Integer> patientIds = patientsByKey.values().stream().map(PatientEntity::getPatientId).toList();
+            for (Queue open : queueRepository.findByPatientPatientIdInAndStatusIn(patientIds, ACTIVE_STATUSES)) {
+                openByPatient.merge(open.getPatient().getPatientId(), open, (a, b) -> a.getId() >= b.getId() ? a : b);
+            }
+        }
+
+        // 2. Decide per item: existing entry, or a new entry (with a new patient if unknown)
+        LocalDateTime now = LocalDateTime.now();
+        List<PatientEntity> newPatients = new ArrayList<>();
+        List<Queue> newEntries = new ArrayList<>();
+        Map<Integer, Integer> entryByItem = new HashMap<>();   // item index -> newEntries index
+        Map<String, Integer> entryByKey = new HashMap<>();     // same patient twice in one batch
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            PatientQueueRequest request = requests.get(i);
+            String key = matchKeys[i];
+            PatientEntity patient = key == null ? null : patientsByKey.get(key);
+            Queue open = patient == null ? null : openByPatient.get(patient.getPatientId());
+            if (open != null) {
+                results[i] = existing(i, open);
+                continue;
+            }
+            if (key != null && entryByKey.containsKey(key)) {
+                entryByItem.put(i, entryByKey.get(key));
+                continue;
+            }
+            if (patient == null) {
+                patient = new PatientEntity();
+                patient.setFirstName(request.getFirstName());
+                patient.setLastName(request.getLastName());
+                patient.setAge(request.getAge());
+                patient.setGender(request.getGender());
+                patient.setContactNo(request.getContactNo());
+                patient.setAddress(request.getAddress());
+                newPatients.add(patient);
+            }
+            entryByItem.put(i, newEntries.size());
+            if (key != null) {
+                entryByKey.put(key, newEntries.size());
+            }
+            Queue entry = newEntry(patient, null, request, now);
+            doctorScheduler.assign(entry, request.getSpecialty());
+            newEntries.add(entry);
+        }
+
+        // 3. Reserve numbers and versions as blocks, then write one batch per table
+        if (!newEntries.isEmpty()) {
+            List<String> numbers = queueNumberAllocator.nextQueueNumbers(newEntries.size());
+            long firstSeq = changeSequence.advance(newEntries.size());
+            for (int n = 0; n < newEntries.size(); n++) {
+                newEntries.get(n).setQueueNumber(numbers.get(n));
+                newEntries.get(n).setChangeSeq(firstSeq + n);
+            }
+            // Pooled ids are known before the insert, so Hibernate sends these as JDBC batches
+            patientRepository.saveAll(newPatients);
+            queueRepository.saveAll(newEntries);
+            newEntries.forEach(entry -> eventPublisher.publishEvent(QueueChangedEvent.joined(entry)));
+        }
+
+        // 4. Results in request order; a repeated patient points at the entry made for its first item
+        Set<Integer> reported = new HashSet<>();
+        List<QueueJoinResult> ordered = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                int n = entryByItem.get(i);
+                Queue entry = newEntries.get(n);
+                QueueJoinResult result = reported.add(n) ? new QueueJoinResult(i, QueueJoinResult.JOINED) : existing(i, entry);
+                result.setQueueId(entry.getId());
+                result.setQueueNumber(entry.getQueueNumber());
+                result.setPatientName(entry.getPatient().getFullName());
+                results[i] = result;
+            }
+            ordered.add(results[i]);
+        }
+        return ordered;
+    }
+
+    private static QueueJoinResult existing(int index, Queue queue) {
+        QueueJoinResult result = new QueueJoinResult(index, QueueJoinResult.EXISTING);
+        result.setQueueId(queue.getId());
+        result.setQueueNumber(queue.getQueueNumber());
+        result.setPatientName(queue.getPatient().getFullName());
+        return result;
+    }
+
+    // A WAITING entry for the patient, stamped with the given arrival time
+    private static Queue newEntry(PatientEntity patient, String queueNumber, PatientQueueRequest request, LocalDateTime now) {
         Queue queue = new Queue();
-        queue.setQueueNumber(nextQueueNumber);
-        queue.setStatus("WAITING"); // Default status
+        queue.setQueueNumber(queueNumber);
         queue.setPatient(patient);  // Link the patient
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("hh:mm a");
-        queue.setArrivalTime(LocalTime.now().format(formatter));
-        queue.setAssignedDoctor("Unassigned"); 
+        queue.setArrivedAt(now);
+        queue.setArrivalTime(ARRIVAL_FORMAT.format(now)); // display copy of arrivedAt
+        applyStatus(queue, Queue.STATUS_WAITING, now); // Default status
+        queue.setAssignedDoctor(Queue.UNASSIGNED);
+        queue.setPriority(normalizePriority(request.getPriority()));
+        queue.setDepartment(normalizeDepartment(request.getDepartment()));
+        return queue;
+    }
 
-        // 4. Save and Return
-        return queueRepository.save(queue);
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
     }
 
-    private String generateNextQueueNumber() {
-        return queueRepository.findLastQueueEntry()
-                .map(lastQueue -> {
-                    // Logic: Get last number "Q-005", parse 5, add 1 -> "Q-006"
-                    String lastNumStr = lastQueue.getQueueNumber();
-                    int lastNum = Integer.parseInt(lastNumStr.split("-")[1]);
-                    return String.format("Q-%03d", lastNum + 1);
-                })
-                .orElse("Q-001"); // Default if table is empty
+    // One indexed read on patient.match_key
+    private PatientEntity findReturningPatient(PatientQueueRequest request) {
+        String matchKey = PatientEntity.matchKey(request.getFirstName(), request.getLastName(),
+                request.getContactNo(), request.getAge());
+        return matchKey == null ? null : patientRepository.findFirstByMatchKeyOrderByPatientIdAsc(matchKey).orElse(null);
     }
 
+    // Served from the in-memory engine, not the database
     public List<Queue> getAllQueues() {
-        return queueRepository.findAll();
+        return queueEngine.snapshot();
+    }
+
+    public Optional<Queue> getQueueEntry(Long id) {
+        return queueEngine.get(id);
+    }
+
+    // Delta sync: rows changed and ids deleted after version "since" (0 or a stale cursor = today's full list)
+    @Transactional(readOnly = true)
+    public Map<String, Object> getChangesSince(long since) {
+        long version = changeSequence.current();
+        LocalDate today = LocalDate.now();
+
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("version", version);
+        // Cursors from before the oldest kept tombstones may have missed deletions
+        if (since <= 0 || since < changeSequence.tombstoneFloor()) {
+            changes.put("full", true);
+            changes.put("changes", queueRepository.findByArrivedAtGreaterThanEqualAndArrivedAtLessThanOrderByArrivedAtAsc(
+                    today.atStartOfDay(), today.plusDays(1).atStartOfDay()));
+            changes.put("deleted", List.of());
+        } else {
+            changes.put("full", false);
+            changes.put("changes", queueRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(since));
+            changes.put("deleted", tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(since)
+                    .stream()
+                    .map(QueueTombstone::getQueueId)
+                    .toList());
+        }
+        return changes;
+    }
+
+    /**
+     * Visits that arrived between two dates (both inclusive), oldest first,
+     * optionally limited to one status. Archived visits come from visit_history,
+     * the rest from the live table; both reads use their arrival-time indexes.
+     */
+    @Transactional(readOnly = true)
+    public List<VisitHistory> getQueueHistory(LocalDate from, LocalDate to, String status) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        boolean allStatuses = status == null || status.isBlank();
+
+        List<VisitHistory> visits = new ArrayList<>(allStatuses
+                ? visitHistoryRepository.findByVisitTimeGreaterThanEqualAndVisitTimeLessThanOrderByVisitTimeAsc(start, end)
+                : visitHistoryRepository.findByStatusAndVisitTimeGreaterThanEqualAndVisitTimeLessThanOrderByVisitTimeAsc(
+                        status.trim(), start, end));
+        List<Queue> live = allStatuses
+                ? queueRepository.findByArrivedAtGreaterThanEqualAndArrivedAtLessThanOrderByArrivedAtAsc(start, end)
+                : queueRepository.findByStatusAndArrivedAtGreaterThanEqualAndArrivedAtLessThanOrderByArrivedAtAsc(
+                        status.trim(), start, end);
+        live.forEach(queue -> visits.add(VisitHistory.of(queue)));
+        visits.sort(Comparator.comparing(VisitHistory::getVisitTime));
+        return visits;
     }
 
     @Transactional
     public Queue updateQueue(Long id, Queue queueData) throws Exception {
-        Queue queue = queueRepository.findById(id)
+        // Locked before taking a version, so this row's versions follow its commit order
+        Queue queue = queueRepository.findForUpdate(id)
             .orElseThrow(() -> new Exception("Queue item not found with id: " + id));
 
         // Update queue fields
         if (queueData.getStatus() != null) {
-            queue.setStatus(queueData.getStatus());
+            applyStatus(queue, queueData.getStatus(), LocalDateTime.now());
         }
-        if (queueData.getAssignedDoctor() != null) {
-            queue.setAssignedDoctor(queueData.getAssignedDoctor());
+        if (queueData.getAssignedDoctorId() != null) {
+            assignDoctor(queue, queueData.getAssignedDoctorId());
+        } else if (queueData.getAssignedDoctor() != null) {
+            assignDoctor(queue, doctorIdByName(queue, queueData.getAssignedDoctor()));
+        }
+        if (queueData.getPriority() != null) {
+            queue.setPriority(normalizePriority(queueData.getPriority()));
+        }
+        if (queueData.getDepartment() != null) {
+            queue.setDepartment(normalizeDepartment(queueData.getDepartment()));
         }
 
         // Update patient details if provided
@@ -97,20 +361,171 @@ public class QueueService {
             patientRepository.save(patient);
         }
 
-        return queueRepository.save(queue);
+        queue.setChangeSeq(changeSequence.next());
+        Queue saved = queueRepository.save(queue);
+        eventPublisher.publishEvent(QueueChangedEvent.updated(saved));
+        return saved;
+    }
+
+    /**
+     * Gives the doctor the most urgent waiting patient from their own line, their
+     * department's line, or the line of a department colleague who is offline or
+     * has been removed, and marks the entry CONSULTING and the doctor busy.
+     * The engine hands each entry to exactly one caller; only that one row is read
+     * and locked. The doctor comes from StaffDirectory and is marked busy on the
+     * AvailabilityBoard once the call commits. Returns empty when nobody is waiting.
+     */
+    @Transactional
+    public Optional<Queue> callNext(int staffId) throws Exception {
+        MedicalStaffEntity staff = staffDirectory.get(staffId)
+            .orElseThrow(() -> new Exception("Medical staff not found with ID: " + staffId));
+        List<String> lanes = callableLanes(staff);
+
+        while (true) {
+            Optional<Queue> claimed = queueEngine.claimNext(lanes);
+            if (claimed.isEmpty()) {
+                return Optional.empty();
+            }
+            Long id = claimed.get().getId();
+            releaseUnlessCommitted(id);
+
+            Queue queue = queueRepository.findForUpdate(id).orElse(null);
+            if (queue == null || !Queue.STATUS_WAITING.equalsIgnoreCase(queue.getStatus())) {
+                continue; // changed elsewhere; its own event will correct the engine
+            }
+
+            applyStatus(queue, Queue.STATUS_CONSULTING, LocalDateTime.now());
+            queue.setAssignedDoctorId(staffId);
+            queue.setAssignedDoctor(staff.getName());
+            queue.setChangeSeq(changeSequence.next());
+            markBusyOnCommit(staffId);
+
+            Queue saved = queueRepository.save(queue);
+            eventPublisher.publishEvent(QueueChangedEvent.updated(saved));
+            return Optional.of(saved);
+        }
+    }
+
+    // Entries assigned to a doctor who went offline or was removed would otherwise wait for them indefinitely
+    private List<String> callableLanes(MedicalStaffEntity staff) {
+        String department = QueueEngine.departmentLane(staff.getDepartment());
+        List<String> lanes = new ArrayList<>();
+        lanes.add(QueueEngine.doctorLane(staff.getStaffID()));
+        lanes.add(department);
+        Map<Integer, MedicalStaffEntity> everyone = null;
+        for (String lane : queueEngine.laneNames()) {
+            if (!lane.startsWith(QueueEngine.DOCTOR_LANE_PREFIX) || lanes.contains(lane)) {
+                continue;
+            }
+            if (everyone == null) {
+                everyone = new HashMap<>();
+                for (MedicalStaffEntity member : staffDirectory.all()) {
+                    everyone.put(member.getStaffID(), member);
+                }
+            }
+            MedicalStaffEntity other = everyone.get(Integer.parseInt(lane.substring(QueueEngine.DOCTOR_LANE_PREFIX.length())));
+            boolean stranded = other != null
+                ? AvailabilityBoard.OFFLINE.equals(AvailabilityBoard.canonical(other.getAvailability()))
+                    && department.equals(QueueEngine.departmentLane(other.getDepartment()))
+                // Removed doctor: their entries still name the department they joined
+                : queueEngine.peekNext(List.of(lane))
+                    .filter(queue -> department.equals(QueueEngine.departmentLane(queue.getDepartment())))
+                    .isPresent();
+            if (stranded) {
+                lanes.add(lane);
+            }
+        }
+        return lanes;
+    }
+
+    // staffId 0 (or null) unassigns; the name is copied for display
+    private void assignDoctor(Queue queue, Integer staffId) throws Exception {
+        if (staffId == null || staffId <= 0) {
+            queue.setAssignedDoctorId(null);
+            queue.setAssignedDoctor(Queue.UNASSIGNED);
+            return;
+        }
+        MedicalStaffEntity doctor = staffDirectory.get(staffId)
+            .orElseThrow(() -> new Exception("Medical staff not found with ID: " + staffId));
+        queue.setAssignedDoctorId(doctor.getStaffID());
+        queue.setAssignedDoctor(doctor.getName());
+    }
+
+    // Older clients send the doctor's name; an unchanged name keeps the current doctor
+    private Integer doctorIdByName(Queue queue, String name) throws Exception {
+        String trimmed = name.trim();
+        if (trimmed.isEmpty() || Queue.UNASSIGNED.equalsIgnoreCase(trimmed)) {
+            return null;
+        }
+        if (queue.getAssignedDoctorId() != null && trimmed.equalsIgnoreCase(queue.getAssignedDoctor())) {
+            return queue.getAssignedDoctorId();
+        }
+        return staffDirectory.all().stream()
+            .filter(staff -> trimmed.equalsIgnoreCase(staff.getName()))
+            .map(MedicalStaffEntity::getStaffID)
+            .findFirst()
+            .orElseThrow(() -> new Exception("No medical staff named " + trimmed));
+    }
+
+    // A claimed entry goes back into its lane if the transaction does not commit
+    private void releaseUnlessCommitted(Long id) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    queueEngine.release(id);
+                }
+            }
+        });
+    }
+
+    private void markBusyOnCommit(int staffId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                availabilityBoard.set(staffId, AvailabilityBoard.BUSY);
+            }
+        });
     }
 
     @Transactional
     public void deleteQueue(Long id) throws Exception {
-        queueRepository.findById(id)
+        queueRepository.findForUpdate(id)
             .orElseThrow(() -> new Exception("Queue item not found with id: " + id));
 
         // Delete the queue entry
         queueRepository.deleteById(id);
+        tombstoneRepository.save(new QueueTombstone(id, changeSequence.next()));
+        eventPublisher.publishEvent(QueueChangedEvent.removed(id));
 
         // Optionally delete the patient as well (uncomment if needed)
         // if (queue.getPatient() != null) {
         //     patientRepository.delete(queue.getPatient());
         // }
     }
-}
\ No newline at end of file
+
+    // Sets the status and stamps when it changed; calledAt and completedAt keep their first value
+    private static void applyStatus(Queue queue, String status, LocalDateTime at) {
+        if (!status.equalsIgnoreCase(queue.getStatus())) {
+            queue.setStatusChangedAt(at);
+        }
+        queue.setStatus(status);
+        if (Queue.STATUS_CONSULTING.equalsIgnoreCase(status) && queue.getCalledAt() == null) {
+            queue.setCalledAt(at);
+        }
+        if (Queue.STATUS_COMPLETED.equalsIgnoreCase(status) && queue.getCompletedAt() == null) {
+            queue.setCompletedAt(at);
+        }
+    }
+
+    private static int normalizePriority(Integer priority) {
+        if (priority == null) {
+            return Queue.DEFAULT_PRIORITY;
+        }
+        return Math.max(1, Math.min(5, priority));
+    }
+
+    private static String normalizeDepartment(String department) {
+        return department == null || department.trim().isEmpty() ? Queue.DEFAULT_DEPARTMENT : department.trim();
+    }
+}
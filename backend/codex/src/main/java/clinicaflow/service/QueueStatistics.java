@@ -0,0 +1,149 @@
+package clinicaflow.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import clinicaflow.entity.Queue;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Live queue counters, kept up to date by QueueEngine on every transition
+ * instead of COUNT(*) scans or client-side filtering.
+ * Wait time is measured from arrival until the patient is first called in
+ * (WAITING -> any other status) and kept in a rolling histogram per department.
+ */
+@Service
+public class QueueStatistics {
+
+    @Value("${clinicaflow.queue.stats-window:500}")
+    private int window;
+
+    private final ConcurrentHashMap<String, AtomicLong> byStatus = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, WaitTimeHistogram> waitByDepartment = new ConcurrentHashMap<>();
+    // Consultation length per doctor lane and department lane, measured CONSULTING -> COMPLETED
+    private final ConcurrentHashMap<String, WaitTimeHistogram> serviceByLane = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, LocalDateTime> consultStartedAt = new ConcurrentHashMap<>();
+    private WaitTimeHistogram overallWait;
+
+    @PostConstruct
+    void init() {
+        overallWait = new WaitTimeHistogram(window);
+    }
+
+    // Called by QueueEngine (under its write lock) with the entry before and after a change
+    void onTransition(Queue previous, Queue current) {
+        if (previous != null) {
+            counter(statusOf(previous)).decrementAndGet();
+        }
+        if (current != null) {
+            counter(statusOf(current)).incrementAndGet();
+        }
+        if (previous != null && current != null
+                && Queue.STATUS_WAITING.equals(statusOf(previous))
+                && !Queue.STATUS_WAITING.equals(statusOf(current))) {
+            Long waited = waitedSeconds(current);
+            if (waited != null) {
+                overallWait.record(waited);
+                waitByDepartment.computeIfAbsent(QueueEngine.departmentLane(current.getDepartment()), d -> new WaitTimeHistogram(window))
+                        .record(waited);
+            }
+        }
+        trackConsultation(previous, current);
+    }
+
+    private void trackConsultation(Queue previous, Queue current) {
+        boolean wasConsulting = previous != null && Queue.STATUS_CONSULTING.equals(statusOf(previous));
+        boolean isConsulting = current != null && Queue.STATUS_CONSULTING.equals(statusOf(current));
+        Long id = current != null ? current.getId() : previous.getId();
+        if (isConsulting && !wasConsulting) {
+            consultStartedAt.put(id, changedAt(current));
+        } else if (wasConsulting && !isConsulting) {
+            LocalDateTime startedAt = consultStartedAt.remove(id);
+            if (startedAt != null && current != null && Queue.STATUS_COMPLETED.equals(statusOf(current))) {
+                long seconds = Math.max(0, Duration.between(startedAt, changedAt(current)).getSeconds());
+                serviceByLane.computeIfAbsent(QueueEngine.laneOf(current), l -> new WaitTimeHistogram(window)).record(seconds);
+                serviceByLane.computeIfAbsent(QueueEngine.departmentLane(current.getDepartment()), l -> new WaitTimeHistogram(window))
+                        .record(seconds);
+            }
+        }
+    }
+
+    // Observed average consultation length for a lane, once there are enough samples
+    public Double averageConsultMinutes(String lane, int minSamples) {
+        WaitTimeHistogram histogram = serviceByLane.get(lane);
+        if (histogram == null || histogram.count() < minSamples) {
+            return null;
+        }
+        return histogram.averageMinutes();
+    }
+
+    // Counters restart from the rebuilt engine; wait-time history is kept
+    void reset() {
+        byStatus.clear();
+    }
+
+    public long count(String status) {
+        AtomicLong counter = byStatus.get(status.toUpperCase());
+        return counter == null ? 0 : counter.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Long> statuses = new HashMap<>();
+        long total = 0;
+        for (Map.Entry<String, AtomicLong> entry : byStatus.entrySet()) {
+            statuses.put(entry.getKey(), entry.getValue().get());
+            total += entry.getValue().get();
+        }
+        for (String status : new String[] { Queue.STATUS_WAITING, Queue.STATUS_CONSULTING, Queue.STATUS_COMPLETED }) {
+            statuses.putIfAbsent(status, 0L);
+        }
+
+        Map<String, Object> departments = new HashMap<>();
+        waitByDepartment.forEach((lane, histogram) ->
+                departments.put(lane.substring(lane.indexOf(':') + 1), histogram.summary()));
+
+        Map<String, Object> waitTimes = new HashMap<>();
+        waitTimes.put("overall", overallWait.summary());
+        waitTimes.put("byDepartment", departments);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("total", total);
+        stats.put("byStatus", statuses);
+        stats.put("waitTimes", waitTimes);
+        return stats;
+    }
+
+    private AtomicLong counter(String status) {
+        return byStatus.computeIfAbsent(status, s -> new AtomicLong());
+    }
+
+    private static String statusOf(Queue queue) {
+        return queue.getStatus() == null ? "UNKNOWN" : queue.getStatus().toUpperCase();
+    }
+
+    // When the entry took its current status, from the row rather than the clock, so a
+    // consultation replayed by QueueEngine.rebuild() after a restart keeps its real start
+    private static LocalDateTime changedAt(Queue queue) {
+        if (queue.getStatusChangedAt() != null) {
+            return queue.getStatusChangedAt();
+        }
+        return queue.getCalledAt() != null ? queue.getCalledAt() : LocalDateTime.now();
+    }
+
+    // From arrivedAt until the entry was called in (or left the line some other way)
+    private static Long waitedSeconds(Queue queue) {
+        if (queue.getArrivedAt() == null) {
+            return null; // rows created before arrived_at existed
+        }
+        LocalDateTime left = queue.getCalledAt() != null ? queue.getCalledAt()
+                : queue.getStatusChangedAt() != null ? queue.getStatusChangedAt() : LocalDateTime.now();
+        return Math.max(0, Duration.between(queue.getArrivedAt(), left).getSeconds());
+    }
+}
@@ -0,0 +1,157 @@
+package clinicaflow.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import clinicaflow.event.QueueChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes queue changes to waiting-room screens over Server-Sent Events.
+ * A new subscriber first receives a "snapshot" event with the whole queue,
+ * then one "queue" event per join/update/delete.
+ *
+ * Committing threads only put events on each subscriber's bounded buffer; pool
+ * threads write them to the client, at most one per subscriber, so events stay
+ * in order and a stalled client only ever holds its own thread. A client whose
+ * buffer fills up is dropped and gets a fresh snapshot when its EventSource
+ * reconnects, so one stalled screen never holds up a join.
+ */
+@Service
+public class QueueStreamService {
+
+    @Autowired
+    private QueueService queueService;
+
+    @Value("${clinicaflow.queue.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    @Value("${clinicaflow.queue.stream-buffer:100}")
+    private int bufferSize;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        sender = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "queue-stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe() {
+        Subscriber subscriber = new Subscriber(new SseEmitter(streamTimeoutMs));
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Register before reading the snapshot so no change committed in between is lost;
+        // the subscriber lock keeps those deltas behind the snapshot in its buffer.
+        synchronized (subscriber) {
+            subscribers.add(subscriber);
+            subscriber.enqueue("snapshot", queueService.getAllQueues());
+        }
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQueueChanged(QueueChangedEvent event) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", event.getType());
+        payload.put("id", event.getQueueId());
+        payload.put("queue", event.getQueue());
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                subscriber.enqueue("queue", payload);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEventBuilder> pending = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Never blocks (the emitter is only touched by the drain); starts a drain unless one is running
+        private void enqueue(String eventName, Object data) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(SseEmitter.event().name(eventName).data(data))) {
+                // Fell behind, most likely on a slow write; the drain completes the response once that returns
+                drop();
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    drop(); // shutting down
+                    emitter.complete();
+                }
+            }
+        }
+
+        // Runs on the pool; the draining flag keeps it to one thread per subscriber, so events stay in order
+        private void drain() {
+            do {
+                SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        drop(); // client went away
+                        emitter.completeWithError(e);
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+            if (closed) {
+                emitter.complete(); // the client reconnects and starts over from a snapshot
+            }
+        }
+
+        private void drop() {
+            closed = true;
+            subscribers.remove(this);
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package clinicaflow.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.entity.MedicalStaffEntity;
+import clinicaflow.entity.UserAccountEntity;
+import clinicaflow.event.StaffChangedEvent;
+import clinicaflow.repository.MedicalStaffRepository;
+
+/**
+ * In-process copy of the staff directory: every medical_staff row with its login
+ * account's id, username and role, looked up by staffID or accountID, or listed by
+ * department or role. Serves staff reads on login, /current, the staff pages and
+ * consultation saves without touching the database. Copies show the live
+ * availability from AvailabilityBoard, which the directory keeps told of staff
+ * inserts, updates and deletes.
+ *
+ * Loaded in one query on first use and kept current by StaffDirectoryListener,
+ * which patches the entry for every committed staff or account insert, update and
+ * delete, whichever service wrote it. A lookup by staffID that misses reads that
+ * row through from the database; the whole directory is reloaded after ttl-ms, which
+ * bounds how long writes from another application instance stay invisible.
+ *
+ * The directory is an immutable snapshot replaced on every change, so readers
+ * never lock. Staff tables are small; a patch copies a few hundred references.
+ */
+@Service
+public class StaffDirectory {
+
+    @Autowired
+    private MedicalStaffRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AvailabilityBoard availabilityBoard;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${clinicaflow.staff.directory-ttl-ms:300000}")
+    private long ttlMs;
+
+    private volatile Snapshot snapshot;
+    private volatile long expiresAt;
+
+    // Writers are serialized; changes counts patches so a load that raced one knows it may be stale
+    private final Object writeLock = new Object();
+    private final AtomicLong changes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+
+    // Detached copies: callers may read or modify them freely, and use them as association targets
+    public Optional<MedicalStaffEntity> get(int staffId) {
+        StaffRecord record = current().byId.get(staffId);
+        if (record != null) {
+            hits.increment();
+            return Optional.of(copy(record));
+        }
+        misses.increment();
+        return readThrough(() -> repository.findById(staffId));
+    }
+
+    public Optional<MedicalStaffEntity> getByAccountId(int accountId) {
+        Snapshot directory = current();
+        Integer staffId = directory.staffIdByAccount.get(accountId);
+        if (staffId != null) {
+            hits.increment();
+            return Optional.of(copy(directory.byId.get(staffId)));
+        }
+        // Not read through: most accounts without a staff row are simply not staff (admins, front desk)
+        misses.increment();
+        return Optional.empty();
+    }
+
+    // Everyone, in staffID order
+    public List<MedicalStaffEntity> all() {
+        Snapshot directory = current();
+        hits.increment();
+        return copies(directory.byId.values());
+    }
+
+    public List<MedicalStaffEntity> byDepartment(String department) {
+        return lookup(current().byDepartment, department);
+    }
+
+    public List<MedicalStaffEntity> byRole(String role) {
+        return lookup(current().byRole, role);
+    }
+
+    // Hit/miss counters since startup, for GET /api/medicalstaff/directory/stats
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Snapshot directory = snapshot;
+        stats.put("size", directory == null ? 0 : directory.byId.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("loads", loads.sum());
+        stats.put("patches", patches.sum());
+        return stats;
+    }
+
+    // Applies the change once the surrounding transaction commits (now, if there is none)
+    public void saveAfterCommit(MedicalStaffEntity staff) {
+        PendingChanges pending = pendingChanges();
+        if (pending == null) {
+            committed(staff);
+        } else {
+            pending.staff.put(staff.getStaffID(), staff);
+        }
+    }
+
+    public void removeAfterCommit(int staffId) {
+        PendingChanges pending = pendingChanges();
+        if (pending == null) {
+            remove(staffId);
+        } else {
+            pending.staff.put(staffId, null);
+        }
+    }
+
+    // Username or role of a login account changed; a removed account is unlinked (its staff row is removed by cascade)
+    public void accountAfterCommit(UserAccountEntity account, boolean removed) {
+        PendingChanges pending = pendingChanges();
+        if (pending == null) {
+            account(account.getAccountID(), removed ? null : account);
+        } else {
+            pending.accounts.put(account.getAccountID(), removed ? null : account);
+        }
+    }
+
+    private void committed(MedicalStaffEntity staff) {
+        save(staff);
+        availabilityBoard.saved(staff);
+        eventPublisher.publishEvent(new StaffChangedEvent(staff.getStaffID(), false));
+    }
+
+    private void save(MedicalStaffEntity staff) {
+        StaffRecord record = new StaffRecord(staff);
+        patch(records -> records.put(record.staffID, record));
+    }
+
+    private void remove(int staffId) {
+        patch(records -> records.remove(staffId));
+        availabilityBoard.removed(staffId);
+        eventPublisher.publishEvent(new StaffChangedEvent(staffId, true));
+    }
+
+    // account is null when it was deleted
+    private void account(int accountId, UserAccountEntity account) {
+        patch(records -> {
+            Integer staffId = snapshot.staffIdByAccount.get(accountId);
+            StaffRecord record = staffId == null ? null : records.get(staffId);
+            if (record != null) {
+                records.put(staffId, record.withAccount(account));
+            }
+        });
+    }
+
+    private void patch(Consumer<Map<Integer, StaffRecord>> change) {
+        synchronized (writeLock) {
+            changes.incrementAndGet();
+            if (snapshot == null) {
+                return; // not loaded yet; the first load reads the committed row
+            }
+            Map<Integer, StaffRecord> records = new TreeMap<>(snapshot.byId);
+            change.accept(records);
+            snapshot = new Snapshot(records);
+            patches.increment();
+        }
+    }
+
+    private Optional<MedicalStaffEntity> readThrough(Supplier<Optional<MedicalStaffEntity>> query) {
+        Optional<MedicalStaffEntity> staff = query.get();
+        staff.ifPresent(found -> {
+            save(found);
+            availabilityBoard.loaded(found);
+        });
+        return staff.map(found -> copy(new StaffRecord(found)));
+    }
+
+    private Snapshot current() {
+        Snapshot directory = snapshot;
+        if (directory != null && System.currentTimeMillis() < expiresAt) {
+            return directory;
+        }
+        synchronized (writeLock) {
+            if (snapshot == null || System.currentTimeMillis() >= expiresAt) {
+                load();
+            }
+            return snapshot;
+        }
+    }
+
+    // One query for every staff member and account; called holding writeLock
+    private void load() {
+        long changesBefore = changes.get();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<MedicalStaffEntity> staff = readOnly.execute(status -> repository.findAllWithAccounts());
+        Map<Integer, StaffRecord> records = new TreeMap<>();
+        for (MedicalStaffEntity member : staff) {
+            records.put(member.getStaffID(), new StaffRecord(member));
+        }
+        snapshot = new Snapshot(records);
+        loads.increment();
+        // A write committed during the query may be missing; read again on next use rather than wait a whole ttl
+        expiresAt = changes.get() == changesBefore ? System.currentTimeMillis() + ttlMs : 0;
+    }
+
+    private List<MedicalStaffEntity> lookup(Map<String, List<StaffRecord>> index, String value) {
+        hits.increment();
+        List<StaffRecord> records = value == null ? null : index.get(key(value));
+        return records == null ? new ArrayList<>() : copies(records);
+    }
+
+    private List<MedicalStaffEntity> copies(Iterable<StaffRecord> records) {
+        List<MedicalStaffEntity> copies = new ArrayList<>();
+        for (StaffRecord record : records) {
+            copies.add(copy(record));
+        }
+        return copies;
+    }
+
+    // The record's availability may be behind the board by a flush; the board's is the live one
+    private MedicalStaffEntity copy(StaffRecord record) {
+        return availabilityBoard.overlay(record.toEntity());
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // This transaction's change set, registered on first use
+    private PendingChanges pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    // Latest committed-to-be state per staff id and account id; null means deleted
+    private final class PendingChanges implements TransactionSynchronization {
+        private final Map<Integer, MedicalStaffEntity> staff = new LinkedHashMap<>();
+        private final Map<Integer, UserAccountEntity> accounts = new LinkedHashMap<>();
+
+        private StaffDirectory owner() {
+            return StaffDirectory.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            staff.forEach((staffId, member) -> {
+                if (member == null) {
+                    remove(staffId);
+                } else {
+                    committed(member);
+                }
+            });
+            accounts.forEach(StaffDirectory.this::account);
+        }
+    }
+
+    // The directory at one point in time, with its lookup tables; never modified once built
+    private static final class Snapshot {
+        private final Map<Integer, StaffRecord> byId;
+        private final Map<Integer, Integer> staffIdByAccount = new HashMap<>();
+        private final Map<String, List<StaffRecord>> byDepartment = new HashMap<>();
+        private final Map<String, List<StaffRecord>> byRole = new HashMap<>();
+
+        private Snapshot(Map<Integer, StaffRecord> records) {
+            byId = Collections.unmodifiableMap(records);
+            for (StaffRecord record : records.values()) {
+                if (record.accountID != null) {
+                    staffIdByAccount.put(record.accountID, record.staffID);
+                }
+                add(byDepartment, record.department, record);
+                add(byRole, record.role, record);
+            }
+        }
+
+        private static void add(Map<String, List<StaffRecord>> index, String value, StaffRecord record) {
+            if (value != null) {
+                index.computeIfAbsent(key(value), k -> new ArrayList<>()).add(record);
+            }
+        }
+    }
+
+    // What the directory keeps per staff member; the account's password hash is never copied
+    private record StaffRecord(int staffID, String name, String role, String contactNo, String specialty, Integer age,
+            String gender, String department, String availability, Integer accountID, String username,
+            String accountRole) {
+
+        private StaffRecord(MedicalStaffEntity staff) {
+            this(staff.getStaffID(), staff.getName(), staff.getRole(), staff.getContactNo(), staff.getSpecialty(),
+                    staff.getAge(), staff.getGender(), staff.getDepartment(), staff.getAvailability(),
+                    staff.getUserAccount() == null ? null : staff.getUserAccount().getAccountID(),
+                    staff.getUserAccount() == null ? null : staff.getUserAccount().getUsername(),
+                    staff.getUserAccount() == null ? null : staff.getUserAccount().getRole());
+        }
+
+        private StaffRecord withAccount(UserAccountEntity account) {
+            return new StaffRecord(staffID, name, role, contactNo, specialty, age, gender, department, availability,
+                    account == null ? null : account.getAccountID(), account == null ? null : account.getUsername(),
+                    account == null ? null : account.getRole());
+        }
+
+        private MedicalStaffEntity toEntity() {
+            MedicalStaffEntity staff = new MedicalStaffEntity();
+            staff.setStaffID(staffID);
+            staff.setName(name);
+            staff.setRole(role);
+            staff.setContactNo(contactNo);
+            staff.setSpecialty(specialty);
+            staff.setAge(age);
+            staff.setGender(gender);
+            staff.setDepartment(department);
+            staff.setAvailability(availability);
+            if (accountID != null) {
+                UserAccountEntity account = new UserAccountEntity();
+                account.setAccountID(accountID);
+                account.setUsername(username);
+                account.setRole(accountRole);
+                staff.setUserAccount(account);
+            }
+            return staff;
+        }
+    }
+}
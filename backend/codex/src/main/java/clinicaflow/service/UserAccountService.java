@@ -29,6 +29,9 @@ public class UserAccountService {
     @Autowired
     private MedicalStaffRepository medicalStaffRepository;
 
+    @Autowired
+    private StaffDirectory staffDirectory;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -109,10 +112,11 @@ public class UserAccountService {
             userData.put("role", user.getRole());
             
             // Include medical staff info if exists
-            if (user.getMedicalStaff() != null) {
+            Optional<MedicalStaffEntity> medicalStaff = staffDirectory.getByAccountId(user.getAccountID());
+            if (medicalStaff.isPresent()) {
                 Map<String, Object> staffInfo = new HashMap<>();
-                staffInfo.put("name", user.getMedicalStaff().getName());
-                staffInfo.put("specialty", user.getMedicalStaff().getSpecialty());
+                staffInfo.put("name", medicalStaff.get().getName());
+                staffInfo.put("specialty", medicalStaff.get().getSpecialty());
                 userData.put("medicalStaff", staffInfo);
             }
 
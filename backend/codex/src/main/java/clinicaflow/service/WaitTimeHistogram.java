@@ -0,0 +1,75 @@
+package clinicaflow.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rolling histogram over the last {@code window} durations, in one-minute buckets.
+ * Recording is O(1); averages are exact and percentiles are accurate to the minute.
+ */
+public class WaitTimeHistogram {
+
+    private static final int MAX_MINUTES = 240; // last bucket collects everything longer
+
+    private final long[] samples; // ring buffer of recorded durations in seconds
+    private final int[] buckets = new int[MAX_MINUTES + 1];
+    private int next;
+    private int count;
+    private long totalSeconds;
+
+    public WaitTimeHistogram(int window) {
+        this.samples = new long[Math.max(1, window)];
+    }
+
+    public synchronized void record(long seconds) {
+        long value = Math.max(0, seconds);
+        if (count == samples.length) {
+            long evicted = samples[next];
+            buckets[bucketOf(evicted)]--;
+            totalSeconds -= evicted;
+        } else {
+            count++;
+        }
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        buckets[bucketOf(value)]++;
+        totalSeconds += value;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized double averageMinutes() {
+        return count == 0 ? 0 : totalSeconds / 60.0 / count;
+    }
+
+    // Upper edge of the bucket holding the p-th percentile, in minutes
+    public synchronized int percentileMinutes(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int minute = 0; minute < buckets.length; minute++) {
+            seen += buckets[minute];
+            if (seen >= rank) {
+                return minute + 1;
+            }
+        }
+        return MAX_MINUTES;
+    }
+
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("samples", count);
+        summary.put("averageMinutes", Math.round(averageMinutes() * 10) / 10.0);
+        summary.put("p50Minutes", percentileMinutes(0.5));
+        summary.put("p90Minutes", percentileMinutes(0.9));
+        return summary;
+    }
+
+    private static int bucketOf(long seconds) {
+        return (int) Math.min(MAX_MINUTES, seconds / 60);
+    }
+}
@@ -0,0 +1,184 @@
+package clinicaflow.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import clinicaflow.entity.Queue;
+import clinicaflow.event.QueueChangedEvent;
+import clinicaflow.event.StaffAvailabilityChangedEvent;
+import clinicaflow.repository.ConsultationRepository;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Estimates each waiting patient's time until consultation.
+ *
+ * estimate = (patients ahead / doctors serving the lane) x average consultation length.
+ * A doctor's lane is served by that doctor; a department lane by the department's
+ * available doctors, as counted live by AvailabilityBoard. Consultation length comes from measured CONSULTING -> COMPLETED
+ * times, seeded from consultation history (consultations per working day per doctor).
+ *
+ * Estimates are recomputed only for the lanes touched by a queue change or an
+ * availability change (and periodically, as consultation lengths drift) and stored
+ * on the engine's entries, so status checks just read them. A recompute that moves
+ * any estimate bumps the "queue_estimate" version, so GET /api/queue's ETag changes
+ * with it.
+ */
+@Service
+public class WaitTimePredictor {
+
+    private static final int MIN_MEASURED_SAMPLES = 3;
+
+    // ETag version of the estimates served on GET /api/queue
+    public static final String ESTIMATE_VERSION = "queue_estimate";
+
+    @Autowired
+    private QueueEngine queueEngine;
+
+    @Autowired
+    private QueueStatistics statistics;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private AvailabilityBoard availabilityBoard;
+
+    @Autowired
+    private EntityVersionTracker versionTracker;
+
+    @Value("${clinicaflow.queue.default-consult-minutes:15}")
+    private double defaultConsultMinutes;
+
+    @Value("${clinicaflow.queue.workday-minutes:480}")
+    private double workdayMinutes;
+
+    // Historical consultation length per lane, from consultation counts
+    private final Map<String, Double> historicalMinutes = new ConcurrentHashMap<>();
+    // Lane each waiting entry was last estimated in, so a move also refreshes the old lane
+    private final Map<Long, String> laneById = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        loadHistory();
+        recomputeAll();
+    }
+
+    // After QueueEngine has applied the change
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQueueChanged(QueueChangedEvent event) {
+        Set<String> lanes = new HashSet<>();
+        String previousLane = laneById.remove(event.getQueueId());
+        if (previousLane != null) {
+            lanes.add(previousLane);
+        }
+        if (event.getQueue() != null) {
+            lanes.add(QueueEngine.laneOf(event.getQueue()));
+        }
+        lanes.forEach(this::recompute);
+    }
+
+    // A doctor in the department became available or stopped being available
+    @EventListener
+    public void onAvailabilityChanged(StaffAvailabilityChangedEvent event) {
+        String lane = QueueEngine.departmentLane(event.getDepartment());
+        if (queueEngine.laneNames().contains(lane)) {
+            recompute(lane);
+        }
+    }
+
+    // Measured consultation lengths move as patients are seen; refresh every lane now and then
+    @Scheduled(fixedDelayString = "${clinicaflow.queue.estimate-refresh-ms:60000}")
+    public void recomputeAll() {
+        new ArrayList<>(queueEngine.laneNames()).forEach(this::recompute);
+    }
+
+    public Integer estimateFor(Long queueId) {
+        return queueEngine.get(queueId).map(Queue::getEstimatedWaitMinutes).orElse(null);
+    }
+
+    public void recompute(String lane) {
+        List<Queue> line = queueEngine.waitingLine(lane);
+        if (line.isEmpty()) {
+            return;
+        }
+        boolean doctorLane = lane.startsWith("doctor:");
+        long available = doctorLane ? 1 : availableDoctors(lane);
+        int doctors = (int) Math.max(1, available);
+        double consultMinutes = consultMinutes(lane);
+        boolean changed = false;
+        for (int position = 0; position < line.size(); position++) {
+            Queue queue = line.get(position);
+            double minutes = (position / doctors) * consultMinutes;
+            if (available == 0) {
+                minutes += consultMinutes / 2; // everyone is busy: expect to wait for someone to finish
+            }
+            Integer estimate = (int) Math.round(minutes);
+            if (!estimate.equals(queue.getEstimatedWaitMinutes())) {
+                queue.setEstimatedWaitMinutes(estimate);
+                changed = true;
+            }
+            laneById.put(queue.getId(), lane);
+        }
+        if (changed) {
+            versionTracker.bump(ESTIMATE_VERSION);
+        }
+    }
+
+    private long availableDoctors(String lane) {
+        return availabilityBoard.availableIn(laneValue(lane));
+    }
+
+    // Expected length of one consultation in the lane: measured, else from history, else the default
+    public double consultMinutes(String lane) {
+        Double measured = statistics.averageConsultMinutes(lane, MIN_MEASURED_SAMPLES);
+        if (measured != null) {
+            return measured;
+        }
+        return historicalMinutes.getOrDefault(lane, defaultConsultMinutes);
+    }
+
+    private void loadHistory() {
+        Map<String, double[]> departmentTotals = new HashMap<>(); // consultations, days
+        for (Object[] row : consultationRepository.countConsultationsPerStaff()) {
+            int staffId = ((Number) row[0]).intValue();
+            String department = (String) row[1];
+            long consultations = ((Number) row[2]).longValue();
+            long days = ((Number) row[3]).longValue();
+            if (consultations == 0 || days == 0) {
+                continue;
+            }
+            historicalMinutes.put(QueueEngine.doctorLane(staffId), minutesPerConsultation(consultations, days));
+            double[] totals = departmentTotals.computeIfAbsent(QueueEngine.departmentLane(department), d -> new double[2]);
+            totals[0] += consultations;
+            totals[1] += days;
+        }
+        departmentTotals.forEach((lane, totals) ->
+                historicalMinutes.put(lane, minutesPerConsultation((long) totals[0], (long) totals[1])));
+    }
+
+    // A doctor who sees 32 patients on an 8-hour day spends about 15 minutes on each
+    private double minutesPerConsultation(long consultations, long days) {
+        double perDay = (double) consultations / days;
+        return Math.max(5, Math.min(60, workdayMinutes / perDay));
+    }
+
+    private static String laneValue(String lane) {
+        return lane.substring(lane.indexOf(':') + 1);
+    }
+}
@@ -0,0 +1,161 @@
+package clinicaflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.dto.response.ConsultationView;
+import clinicaflow.entity.ConsultationEntity;
+import clinicaflow.entity.MedicalStaffEntity;
+import clinicaflow.entity.PatientEntity;
+import clinicaflow.entity.UserAccountEntity;
+import clinicaflow.repository.ConsultationRepository;
+import clinicaflow.repository.MedicalStaffRepository;
+import clinicaflow.repository.PatientRepository;
+import clinicaflow.repository.UserAccountRepository;
+import clinicaflow.service.ConsultationService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * The consultation list and detail reads must stay one statement each, however many
+ * rows and distinct patients/doctors they cover. Loading ConsultationEntity rows used
+ * to cost an extra SELECT per patient, per doctor and per doctor's user account.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ConsultationQueryCountTest {
+
+    private static final int PATIENTS = 8;
+    private static final int STAFF = 3;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private MedicalStaffRepository staffRepository;
+
+    @Autowired
+    private UserAccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final List<Integer> consultationIds = new ArrayList<>();
+    private final List<Integer> patientIds = new ArrayList<>();
+    private final List<Integer> staffIds = new ArrayList<>();
+    private final List<Integer> accountIds = new ArrayList<>();
+
+    @BeforeEach
+    void createConsultations() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<MedicalStaffEntity> staff = new ArrayList<>();
+            for (int i = 0; i < STAFF; i++) {
+                UserAccountEntity account = new UserAccountEntity();
+                account.setUsername("query-count-" + run + "-" + i);
+                account.setPasswordHash("x");
+                account.setRole("DOCTOR");
+                entityManager.persist(account);
+                MedicalStaffEntity doctor = new MedicalStaffEntity();
+                doctor.setName("Dr. Count " + i);
+                doctor.setRole("Doctor");
+                doctor.setDepartment("General");
+                doctor.setUserAccount(account);
+                entityManager.persist(doctor);
+                staff.add(doctor);
+            }
+            for (int i = 0; i < PATIENTS; i++) {
+                PatientEntity patient = new PatientEntity();
+                patient.setFirstName("Query");
+                patient.setLastName("Count " + run + " " + i);
+                patient.setAge(40);
+                entityManager.persist(patient);
+                patientIds.add(patient.getPatientId());
+                for (int j = 0; j < 2; j++) {
+                    ConsultationEntity consultation = new ConsultationEntity();
+                    consultation.setPatient(patient);
+                    consultation.setMedicalStaff(staff.get((i + j) % STAFF));
+                    consultation.setDiagnosis("check-up");
+                    consultation.setConsultationDate(LocalDate.now().minusDays(j));
+                    entityManager.persist(consultation);
+                    consultationIds.add(consultation.getConsultationID());
+                }
+            }
+            staff.forEach(doctor -> {
+                staffIds.add(doctor.getStaffID());
+                accountIds.add(doctor.getUserAccount().getAccountID());
+            });
+        });
+    }
+
+    @AfterEach
+    void removeConsultations() {
+        consultationRepository.deleteAllByIdInBatch(consultationIds);
+        patientRepository.deleteAllByIdInBatch(patientIds);
+        staffRepository.deleteAllByIdInBatch(staffIds);
+        accountRepository.deleteAllByIdInBatch(accountIds);
+    }
+
+    @Test
+    void allConsultationsIsOneQuery() {
+        List<ConsultationView> all = statements(1, consultationService::getAllConsultations);
+        assertTrue(all.size() >= PATIENTS * 2);
+        ConsultationView first = all.stream()
+                .filter(view -> view.getConsultationID() == consultationIds.get(0)).findFirst().orElseThrow();
+        assertEquals("Query", first.getPatient().getFirstName());
+        assertEquals("Dr. Count 0", first.getMedicalStaff().getName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filteredPageIsOneQuery() {
+        Map<String, Object> page = statements(1, () -> consultationService.getConsultationPage(null, PATIENTS,
+                null, staffIds.get(0), LocalDate.now().minusDays(1), LocalDate.now()));
+        List<ConsultationView> items = (List<ConsultationView>) page.get("items");
+        assertTrue(items.size() > 1);
+        items.forEach(view -> assertEquals(staffIds.get(0).intValue(), view.getMedicalStaff().getStaffID()));
+    }
+
+    @Test
+    void detailIsOneQuery() {
+        ConsultationView view = statements(1, () -> consultationService.getConsultation(consultationIds.get(0))).orElseThrow();
+        assertEquals(patientIds.get(0).intValue(), view.getPatient().getPatientId());
+    }
+
+    // Runs the read outside any transaction, as a request would, and checks how many statements it prepared
+    private <T> T statements(long expected, Supplier<T> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = read.get();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package clinicaflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * An export's slot is claimed before its body is handed to async processing. When
+ * the request ends before the body runs (client gone, timeout), the slot must come
+ * back, or after a few such requests every export is turned away.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportAbortTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Value("${clinicaflow.export.pool-size:2}")
+    private int poolSize;
+
+    @Test
+    void abortedExportsGiveTheirSlotBack() throws Exception {
+        for (int i = 0; i < poolSize * 2; i++) {
+            MvcResult result = mvc.perform(get("/api/export/patients"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            abort((MockAsyncContext) result.getRequest().getAsyncContext(), i % 2 == 0);
+        }
+        MvcResult next = mvc.perform(get("/api/export/patients")).andReturn();
+        assertEquals(200, next.getResponse().getStatus());
+    }
+
+    // What the container does when the client disconnects or the async timeout fires
+    private static void abort(MockAsyncContext context, boolean timeout) throws IOException {
+        AsyncEvent event = new AsyncEvent(context, new IOException("client went away"));
+        for (AsyncListener listener : new ArrayList<>(context.getListeners())) {
+            if (timeout) {
+                listener.onTimeout(event);
+            } else {
+                listener.onError(event);
+            }
+        }
+        context.complete();
+    }
+
+    // Never runs the bodies, so every export is still waiting to start when it is aborted
+    @TestConfiguration
+    static class HeldAsyncTasks {
+        @Bean
+        WebMvcConfigurer heldAsyncExecutor() {
+            List<Runnable> held = new ArrayList<>();
+            AsyncTaskExecutor executor = held::add;
+            return new WebMvcConfigurer() {
+                @Override
+                public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                    configurer.setTaskExecutor(executor);
+                }
+            };
+        }
+    }
+}
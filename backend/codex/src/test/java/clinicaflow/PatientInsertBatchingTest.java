@@ -0,0 +1,76 @@
+package clinicaflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.entity.IdGeneration;
+import clinicaflow.entity.PatientEntity;
+import clinicaflow.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Pooled ids let Hibernate send inserts as JDBC batches: saving many patients must
+ * prepare about one statement per batch plus the id_generator round trips, not
+ * one per row as IDENTITY ids forced. The rows are rolled back, so the only
+ * lasting change is the generator moving ahead.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PatientInsertBatchingTest {
+
+    private static final int ROWS = 120;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void insertsAreBatched() {
+        List<PatientEntity> patients = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            PatientEntity patient = new PatientEntity();
+            patient.setFirstName("Batch");
+            patient.setLastName("Insert " + i);
+            patient.setAge(30);
+            patients.add(patient);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            patientRepository.saveAll(patients);
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        long batches = (ROWS + batchSize - 1) / batchSize;
+        // Each block of ids costs a read and a write of its id_generator row; the first block may be fetched twice
+        long generatorStatements = 2 * ((ROWS + IdGeneration.ALLOCATION_SIZE - 1) / IdGeneration.ALLOCATION_SIZE + 1);
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= batches + generatorStatements,
+                statistics.getPrepareStatementCount() + " statements for " + ROWS + " inserts");
+    }
+}
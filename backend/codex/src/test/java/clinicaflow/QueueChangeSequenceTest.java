@@ -0,0 +1,95 @@
+package clinicaflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import clinicaflow.entity.QueueTombstone;
+import clinicaflow.repository.QueueTombstoneRepository;
+import clinicaflow.service.QueueArchiver;
+import clinicaflow.service.QueueChangeSequence;
+import clinicaflow.service.QueueService;
+
+/**
+ * Queue writes take versions without waiting on each other, so versions can commit
+ * out of order; the version reported to delta-sync clients must never pass one
+ * that is still uncommitted. Pruned tombstones turn older cursors into full syncs.
+ */
+@SpringBootTest
+class QueueChangeSequenceTest {
+
+    @Autowired
+    private QueueChangeSequence changeSequence;
+
+    @Autowired
+    private QueueService queueService;
+
+    @Autowired
+    private QueueArchiver archiver;
+
+    @Autowired
+    private QueueTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void currentWaitsForEarlierVersionsToCommit() throws Exception {
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        long[] earlier = new long[1];
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            earlier[0] = changeSequence.next();
+            taken.countDown();
+            await(finish);
+        }));
+        assertTrue(taken.await(10, TimeUnit.SECONDS));
+
+        // A later write commits first, without waiting for the open one
+        long later = transactionTemplate.execute(status -> changeSequence.next());
+        assertTrue(later > earlier[0]);
+        assertTrue(changeSequence.current() < earlier[0]);
+
+        finish.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        assertTrue(changeSequence.current() >= later);
+    }
+
+    @Test
+    void prunedTombstonesMakeOlderCursorsResync() {
+        long seq = transactionTemplate.execute(status -> {
+            long next = changeSequence.next();
+            QueueTombstone tombstone = new QueueTombstone(-next, next);
+            tombstone.setDeletedAt(LocalDateTime.now().minusDays(30));
+            tombstoneRepository.save(tombstone);
+            return next;
+        });
+        assertFalse(Boolean.TRUE.equals(queueService.getChangesSince(seq - 1).get("full")));
+
+        archiver.pruneTombstones();
+
+        assertFalse(tombstoneRepository.existsById(-seq));
+        assertTrue(changeSequence.tombstoneFloor() >= seq);
+        Map<String, Object> changes = queueService.getChangesSince(seq - 1);
+        assertEquals(true, changes.get("full"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
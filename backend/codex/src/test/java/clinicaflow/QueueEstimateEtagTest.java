@@ -0,0 +1,95 @@
+package clinicaflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import clinicaflow.dto.request.PatientQueueRequest;
+import clinicaflow.entity.Queue;
+import clinicaflow.repository.PatientRepository;
+import clinicaflow.service.QueueService;
+import clinicaflow.service.WaitTimePredictor;
+
+/**
+ * Wait estimates are recomputed outside any queue write, and GET /api/queue serves
+ * them; a poll after a recompute that moved them must not be answered with 304.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueueEstimateEtagTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private QueueService queueService;
+
+    @Autowired
+    private WaitTimePredictor predictor;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private final List<Queue> entries = new ArrayList<>();
+
+    @Test
+    void recomputedEstimatesChangeTheEtag() throws Exception {
+        // A department with no doctors and no history, so the lane runs on the default length
+        String department = "Estimate " + UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 2; i++) {
+            PatientQueueRequest request = new PatientQueueRequest();
+            request.setFirstName("Etag");
+            request.setLastName("Estimate " + i);
+            request.setAge(30);
+            request.setDepartment(department);
+            entries.add(queueService.joinQueue(request));
+        }
+
+        String etag = poll(null).getHeader("ETag");
+        assertEquals(304, poll(etag).getStatus());
+
+        // Nothing moved: the periodic refresh keeps the tag
+        predictor.recomputeAll();
+        assertEquals(304, poll(etag).getStatus());
+
+        // Consultations got longer; only the estimates change
+        double defaultMinutes = (double) ReflectionTestUtils.getField(predictor, "defaultConsultMinutes");
+        try {
+            ReflectionTestUtils.setField(predictor, "defaultConsultMinutes", defaultMinutes * 2);
+            predictor.recomputeAll();
+        } finally {
+            ReflectionTestUtils.setField(predictor, "defaultConsultMinutes", defaultMinutes);
+        }
+        MockHttpServletResponse response = poll(etag);
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader("ETag"));
+    }
+
+    @AfterEach
+    void removeEntries() throws Exception {
+        for (Queue entry : entries) {
+            queueService.deleteQueue(entry.getId());
+            patientRepository.deleteById(entry.getPatient().getPatientId());
+        }
+        predictor.recomputeAll();
+    }
+
+    private MockHttpServletResponse poll(String ifNoneMatch) throws Exception {
+        return ifNoneMatch == null
+                ? mvc.perform(get("/api/queue")).andReturn().getResponse()
+                : mvc.perform(get("/api/queue").header("If-None-Match", ifNoneMatch)).andReturn().getResponse();
+    }
+}
@@ -62,10 +62,9 @@ export const useConsultation = () => {
     const fetchInitialData = async () => {
       // --- Fetch Doctors ---
       try {
-        const staffData = await staffService.getAllStaff();
+        const staffData = await staffService.findStaff({ role: 'Doctor' });
         
         const doctorOptions = staffData
-          .filter(staff => staff.role === 'Doctor' || staff.role === 'doctor')
           .map(doctor => ({
             value: doctor.staffId || doctor.id, 
             label: doctor.name || doctor.fullName 
@@ -3,6 +3,7 @@ import { consultationService } from "../services/consultationService";
 
 export const usePatientHistory = () => {
   const [consultations, setConsultations] = useState([]);
+  const [summary, setSummary] = useState({ total: 0, thisWeek: 0, uniquePatients: 0 });
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
 
@@ -13,7 +14,11 @@ export const usePatientHistory = () => {
   const fetchHistory = async () => {
     try {
       setLoading(true);
-      const data = await consultationService.getAllConsultations();
+      const [data, totals] = await Promise.all([
+        consultationService.getAllConsultations(),
+        consultationService.getSummary()
+      ]);
+      setSummary(totals);
 
       const formattedData = data.map(item => {
         // Handle timezone offset issue with date
@@ -106,24 +111,13 @@ export const usePatientHistory = () => {
     });
   }, [searchQuery, doctorFilter, dateFilter, consultations]);
 
+  // Card figures come from the server, which counts them in SQL over every consultation
   const patientStats = useMemo(() => {
-    const totalVisits = filteredConsultations.length;
-    
-    const thisWeek = filteredConsultations.filter(c => {
-      if (!c.date) return false;
-      const consultationDate = new Date(c.date);
-      const oneWeekAgo = new Date();
-      oneWeekAgo.setDate(oneWeekAgo.getDate() - 7);
-      return consultationDate >= oneWeekAgo;
-    }).length;
-    
-    const uniquePatients = new Set(filteredConsultations.map(c => c.patientName)).size;
-
     return [
       {
         id: 1,
         title: 'Total Visits',
-        value: consultations.length,
+        value: summary.total,
         subText: 'All consultations',
         icon: 'history',
         borderColor: 'rgba(102, 126, 234, 0.1)',
@@ -132,7 +126,7 @@ export const usePatientHistory = () => {
       {
         id: 2,
         title: 'This Week',
-        value: thisWeek,
+        value: summary.thisWeek,
         subText: 'Recent consultations',
         icon: 'schedule',
         borderColor: 'rgba(237, 108, 2, 0.1)',
@@ -141,14 +135,14 @@ export const usePatientHistory = () => {
       {
         id: 3,
         title: 'Unique Patients',
-        value: uniquePatients,
+        value: summary.uniquePatients,
         subText: 'Individual patients',
         icon: 'people',
         borderColor: 'rgba(46, 125, 50, 0.1)',
         hoverShadow: 'rgba(46, 125, 50, 0.15)'
       }
     ];
-  }, [filteredConsultations, consultations.length]); // Fixed dependency
+  }, [summary]);
 
   const handleSearch = (searchTerm) => {
     setSearchQuery(searchTerm);
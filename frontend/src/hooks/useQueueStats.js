@@ -1,40 +1,61 @@
-import { useMemo } from 'react';
+import { useEffect, useMemo, useState } from 'react';
+import { queueService } from '../services/queueService';
 
-export const useQueueStats = (patients = []) => {  // Add default empty array
-  const patientStats = useMemo(() => [
-    {
-      id: 1,
-      title: 'Total Patients',
-      value: patients.length.toString(),
-      subText: 'In queue today',
-      color: '#667eea',
-      gradient: 'linear-gradient(135deg, #667eea 0%, #764ba2 100%)'
-    },
-    {
-      id: 2,
-      title: 'Waiting',
-      value: patients.filter(p => p.status === 'Waiting').length.toString(),
-      subText: 'Average: 15 minutes',
-      color: '#ed6c02',
-      gradient: 'linear-gradient(135deg, #ed6c02 0%, #f57c00 100%)'
-    },
-    {
-      id: 3,
-      title: 'Consulting',
-      value: patients.filter(p => p.status === 'Consulting').length.toString(),
-      subText: 'Currently with doctor',
-      color: '#667eea',
-      gradient: 'linear-gradient(135deg, #667eea 0%, #764ba2 100%)'
-    },
-    {
-      id: 4,
-      title: 'Completed',
-      value: patients.filter(p => p.status === 'Completed').length.toString(),
-      subText: 'Sessions completed',
-      color: '#2e7d32',
-      gradient: 'linear-gradient(135deg, #2e7d32 0%, #4caf50 100%)'
-    }
-  ], [patients]);
+// Counts and wait times come from the server's live counters (GET /api/queue/stats).
+// `patients` is only used as a refresh trigger: whenever the list changes, stats are re-read.
+export const useQueueStats = (patients = []) => {
+  const [stats, setStats] = useState(null);
+
+  useEffect(() => {
+    let cancelled = false;
+    queueService.getQueueStats()
+      .then((data) => { if (!cancelled) setStats(data); })
+      .catch(() => { if (!cancelled) setStats(null); });
+    return () => { cancelled = true; };
+  }, [patients]);
+
+  const patientStats = useMemo(() => {
+    const byStatus = stats?.byStatus || {};
+    const overallWait = stats?.waitTimes?.overall;
+    const averageText = overallWait && overallWait.samples > 0
+      ? `Average: ${Math.round(overallWait.averageMinutes)} minutes (p90 ${overallWait.p90Minutes})`
+      : 'Average: not enough data yet';
+
+    return [
+      {
+        id: 1,
+        title: 'Total Patients',
+        value: String(stats?.total ?? 0),
+        subText: 'In queue today',
+        color: '#667eea',
+        gradient: 'linear-gradient(135deg, #667eea 0%, #764ba2 100%)'
+      },
+      {
+        id: 2,
+        title: 'Waiting',
+        value: String(byStatus.WAITING ?? 0),
+        subText: averageText,
+        color: '#ed6c02',
+        gradient: 'linear-gradient(135deg, #ed6c02 0%, #f57c00 100%)'
+      },
+      {
+        id: 3,
+        title: 'Consulting',
+        value: String(byStatus.CONSULTING ?? 0),
+        subText: 'Currently with doctor',
+        color: '#667eea',
+        gradient: 'linear-gradient(135deg, #667eea 0%, #764ba2 100%)'
+      },
+      {
+        id: 4,
+        title: 'Completed',
+        value: String(byStatus.COMPLETED ?? 0),
+        subText: 'Sessions completed',
+        color: '#2e7d32',
+        gradient: 'linear-gradient(135deg, #2e7d32 0%, #4caf50 100%)'
+      }
+    ];
+  }, [stats]);
 
   return { patientStats };
-};
\ No newline at end of file
+};
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import { Link, useNavigate } from "react-router-dom"; 
 import {
   AppBar,
@@ -63,7 +63,13 @@ export default function LandingPage() {
   const [scrolled, setScrolled] = useState(false);
   const [patientFormModalOpen, setPatientFormModalOpen] = useState(false);
 
-  const handleOpenPatientFormModal = () => setPatientFormModalOpen(true);
+  // One key per form, so a double submit or retry joins the queue only once
+  const joinKeyRef = useRef(null);
+
+  const handleOpenPatientFormModal = () => {
+    joinKeyRef.current = crypto.randomUUID();
+    setPatientFormModalOpen(true);
+  };
   const handleClosePatientFormModal = () => setPatientFormModalOpen(false);
 
   // Logic to handle joining the queue from the Landing Page
@@ -71,7 +77,10 @@ export default function LandingPage() {
     try {
       const response = await fetch('http://localhost:8080/api/queue/join', {
         method: 'POST',
-        headers: { 'Content-Type': 'application/json' },
+        headers: {
+          'Content-Type': 'application/json',
+          'Idempotency-Key': joinKeyRef.current
+        },
         body: JSON.stringify(formData)
       });
 
@@ -49,7 +49,7 @@ import {
   FeedbackModal
 } from '../components';
 
-import { queueService } from '../services/queueService';
+import { queueService, applyQueueChange } from '../services/queueService';
 import staffService from '../services/staffService'; 
 
 // Theme colors matching Staff component
@@ -119,10 +119,16 @@ const PatientQueue = () => {
   };
 
   useEffect(() => {
-    fetchQueueData();
     fetchStaffData();
-    const interval = setInterval(fetchQueueData, 10000);
-    return () => clearInterval(interval);
+    // Live updates instead of polling: full list once, then only the changes
+    const unsubscribe = queueService.subscribeToQueue(
+      (data) => {
+        setQueueList(data);
+        setLoading(false);
+      },
+      (change) => setQueueList((current) => applyQueueChange(current, change))
+    );
+    return unsubscribe;
   }, []);
 
   // Transform queue data to display format
@@ -143,6 +149,7 @@ const PatientQueue = () => {
       name: `${item.patient?.firstName} ${item.patient?.lastName}`,
       age: item.patient?.age,
       assignedTo: item.assignedDoctor || 'Unassigned',
+      assignedDoctorId: item.assignedDoctorId,
       arrivalTime: item.arrivalTime || '--:--',
       status: item.status,
       queueNumber: item.queueNumber,
@@ -174,7 +181,7 @@ const PatientQueue = () => {
       lastName: selectedPatient?.name?.split(' ')[1] || '',
       age: selectedPatient?.age || '',
       status: selectedPatient?.status || '',
-      assignedDoctor: selectedPatient?.assignedTo || '',
+      assignedDoctorId: selectedPatient?.assignedDoctorId || '',
     });
     setEditDialogOpen(true);
     handleMenuClose();
@@ -200,7 +207,7 @@ const PatientQueue = () => {
       const updatePayload = {
         ...queueItem,
         status: editFormData.status,
-        assignedDoctor: editFormData.assignedDoctor,
+        assignedDoctorId: editFormData.assignedDoctorId || 0, // 0 = unassigned
         patient: {
           ...queueItem?.patient,
           firstName: editFormData.firstName,
@@ -777,8 +784,8 @@ const PatientQueue = () => {
                     variant="standard"
                     select
                     label="Assigned Doctor"
-                    value={editFormData.assignedDoctor || ''}
-                    onChange={(e) => handleEditFormChange('assignedDoctor', e.target.value)}
+                    value={editFormData.assignedDoctorId || ''}
+                    onChange={(e) => handleEditFormChange('assignedDoctorId', e.target.value)}
                     sx={{
                       '& .MuiInput-underline': {
                         '&:before': { borderBottomColor: '#4B0082' },
@@ -799,7 +806,7 @@ const PatientQueue = () => {
                     {staffList
                       .filter(staff => staff.role && staff.role.toLowerCase().includes('doctor'))
                       .map(doctor => (
-                        <MenuItem key={doctor.id} value={doctor.name}>
+                        <MenuItem key={doctor.staffID} value={doctor.staffID}>
                           {doctor.name}
                         </MenuItem>
                       ))
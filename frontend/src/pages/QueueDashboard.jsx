@@ -38,6 +38,7 @@ import {
   Caption,
   SubCaption
 } from "../components";
+import { queueService, applyQueueChange } from '../services/queueService';
 
 // --- HELPER FUNCTIONS ---
 const getStatusColor = (status) => {
@@ -89,9 +90,15 @@ const QueueDashboard = () => {
   };
 
   useEffect(() => {
-    fetchQueueData();
-    const interval = setInterval(fetchQueueData, 10000);
-    return () => clearInterval(interval);
+    // Live updates instead of polling: full list once, then only the changes
+    const unsubscribe = queueService.subscribeToQueue(
+      (data) => {
+        setQueueList(data);
+        setLoading(false);
+      },
+      (change) => setQueueList((current) => applyQueueChange(current, change))
+    );
+    return unsubscribe;
   }, []);
 
   // --- FILTERING LOGIC ---
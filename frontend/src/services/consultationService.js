@@ -21,6 +21,39 @@ export const consultationService = {
         }
     },
 
+    // One page, newest first: params may hold after, limit, patientId, staffId, from, to
+    getConsultations: async (params = {}) => {
+        try {
+            const response = await API.get('/consultations', { params });
+            return response.data;
+        } catch (error) {
+            console.error("Error fetching consultations:", error);
+            throw error;
+        }
+    },
+
+    // One patient's consultations, newest first: { items, nextCursor }; pass nextCursor back as cursor for the next page
+    getPatientConsultations: async (patientId, params = {}) => {
+        try {
+            const response = await API.get(`/patients/${patientId}/consultations`, { params });
+            return response.data;
+        } catch (error) {
+            console.error("Error fetching patient consultations:", error);
+            throw error;
+        }
+    },
+
+    // { total, today, thisWeek, uniquePatients, weekStart }, computed by the server
+    getSummary: async () => {
+        try {
+            const response = await API.get('/consultations/summary');
+            return response.data;
+        } catch (error) {
+            console.error("Error fetching consultation summary:", error);
+            throw error;
+        }
+    },
+
     updateConsultation: async (consultationId, consultationData) => {
         try {
             const response = await API.put(`/consultations/update/${consultationId}`, consultationData);
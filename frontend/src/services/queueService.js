@@ -11,6 +11,16 @@ export const queueService = {
     }
   },
 
+  getQueueStats: async () => {
+    try {
+      const response = await API.get('/api/queue/stats');
+      return response.data;
+    } catch (error) {
+      console.error('Error fetching queue stats:', error);
+      throw error;
+    }
+  },
+
   updateQueueItem: async (id, queueData) => {
     try {
       const response = await API.put(`/api/queue/${id}`, queueData);
@@ -30,4 +40,27 @@ export const queueService = {
       throw error;
     }
   },
-};
\ No newline at end of file
+
+  // Opens the live queue stream. onSnapshot gets the full list once (and again after
+  // every reconnect), onChange gets { type, id, queue } for each join/update/delete.
+  subscribeToQueue: (onSnapshot, onChange, onError) => {
+    const source = new EventSource(`${API.defaults.baseURL}/api/queue/stream`);
+    source.addEventListener('snapshot', (event) => onSnapshot(JSON.parse(event.data)));
+    source.addEventListener('queue', (event) => onChange(JSON.parse(event.data)));
+    if (onError) {
+      source.onerror = onError;
+    }
+    return () => source.close();
+  },
+};
+
+// Applies one stream event to a queue list and returns the new list
+export const applyQueueChange = (queueList, change) => {
+  if (change.type === 'REMOVED') {
+    return queueList.filter((item) => item.id !== change.id);
+  }
+  const exists = queueList.some((item) => item.id === change.id);
+  return exists
+    ? queueList.map((item) => (item.id === change.id ? change.queue : item))
+    : [...queueList, change.queue];
+};
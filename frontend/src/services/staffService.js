@@ -26,6 +26,35 @@ export const staffService = {
     }
   },
 
+  // Filtered directory from the server, every page of it: params may hold
+  // department, role, specialty, availability, gender, minAge, maxAge
+  findStaff: async (params = {}) => {
+    try {
+      const staff = [];
+      let after;
+      do {
+        const response = await API.get('/api/medicalstaff/search', { params: { ...params, after, limit: 200 } });
+        staff.push(...response.data.items.map(member => ({
+          id: member.staffID,
+          name: member.name,
+          email: member.username || '',
+          role: member.role,
+          specialty: member.specialty || '',
+          department: member.department || '',
+          contact: member.contactNo || '',
+          status: member.availability || 'Available',
+          accountId: member.accountID,
+          staffID: member.staffID
+        })));
+        after = response.data.nextCursor;
+      } while (after != null);
+      return staff;
+    } catch (error) {
+      console.error('❌ Error searching staff:', error);
+      throw error;
+    }
+  },
+
   // Get staff statistics
   getStaffStats: async () => {
     try {